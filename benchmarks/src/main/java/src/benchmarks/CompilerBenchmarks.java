@@ -0,0 +1,126 @@
+package src.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import src.analysis.AnalysisResult;
+import src.analysis.IncrementalAnalyzer;
+import src.compiler.AssemblyGenerator;
+import src.compiler.CodeOptimizer;
+import src.compiler.TripletCode;
+import src.compiler.TripletGenerator;
+import src.parser.Program;
+import src.tables.ErrorTable;
+import src.tables.SymbolTable;
+
+/**
+ * Throughput of each compiler stage over synthetic sources of 1k, 10k and 100k
+ * lines. Run with {@code -prof gc} for the allocation rate of each stage.
+ *
+ * Stages: {@code symbolTable} ({@link SymbolTable#processInput}), {@code analysis}
+ * (the Swing-free part of it), {@code incremental} (re-analysis after editing one line
+ * in the middle of the source), {@code optimizer}, {@code triplets} and {@code assembly}.
+ * Sources come from {@link ProgramGenerator}, so a seed always gives the same input.
+ * Every stage gets the output of the previous ones already computed, so only the
+ * stage itself is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class CompilerBenchmarks {
+    @Param({"1000", "10000", "100000"})
+    public int lines;
+
+    @Param("42")
+    public long seed;
+
+    @Param("3")
+    public int depth;
+
+    private String source;
+    private Program program;
+    private TripletGenerator triplets;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        source = new ProgramGenerator(seed, depth, 4).generate(lines);
+        program = AnalysisResult.analyze(source).getProgram();
+        triplets = new TripletGenerator();
+        triplets.generateTriplo(program, source);
+    }
+
+    @Benchmark
+    public SymbolTable symbolTable() {
+        SymbolTable symbolTable = new SymbolTable();
+        symbolTable.processInput(source, 1, new ErrorTable(symbolTable));
+        return symbolTable;
+    }
+
+    @Benchmark
+    public AnalysisResult analysis() {
+        return AnalysisResult.analyze(source);
+    }
+
+    @Benchmark
+    public AnalysisResult incremental(Edit edit) {
+        edit.analyzer.replaceLines(edit.line, 1, Arrays.asList(edit.text));
+        return edit.analyzer.analyze();
+    }
+
+    @Benchmark
+    public TripletCode optimizer() {
+        return new CodeOptimizer().optimize(triplets.getOriginalTriplet());
+    }
+
+    @Benchmark
+    public TripletGenerator triplets() {
+        TripletGenerator generator = new TripletGenerator();
+        generator.generateTriplo(program, source);
+        return generator;
+    }
+
+    @Benchmark
+    public AssemblyGenerator assembly() {
+        AssemblyGenerator assembly = new AssemblyGenerator();
+        assembly.generateAssembly(triplets.getTriplet(), triplets.getLiveVariables());
+        return assembly;
+    }
+
+    /**
+     * An analyzer that already analyzed the whole source, and an edit of the line
+     * in its middle. The analyzer is rebuilt before every call, so each one
+     * re-analyzes the same single change.
+     */
+    @State(Scope.Thread)
+    public static class Edit {
+        IncrementalAnalyzer analyzer;
+        int line;
+        String text;
+
+        @Setup(Level.Invocation)
+        public void analyze(CompilerBenchmarks benchmarks) {
+            String[] lines = benchmarks.source.split("\n", -1);
+            line = lines.length / 2;
+            text = lines[line] + " ";
+            analyzer = new IncrementalAnalyzer();
+            analyzer.setText(benchmarks.source);
+            analyzer.analyze();
+        }
+    }
+}
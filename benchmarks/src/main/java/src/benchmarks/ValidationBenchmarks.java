@@ -0,0 +1,131 @@
+package src.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import src.tokens.Lexer;
+import src.tokens.TokenKind;
+import src.tokens.TokenStream;
+import src.validators.RegExPattern;
+
+/**
+ * Compares the regex-based validation of identifiers and literal values with
+ * the hand-written scanners of {@link RegExPattern}.
+ *
+ * The inputs are the identifiers and literals of a generated program plus a few
+ * invalid lexemes; each operation checks all of them. Each check is measured three
+ * ways: {@code String.matches}, which compiles the pattern on every call, a cached
+ * {@link Pattern}, and the scanner.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ValidationBenchmarks {
+    private static final String[] INVALID = {"abc", "JSJ", "JSJA1", "jsja1", "JSJa", "1JSJa1", "-", "\"open", "1.", "--1"};
+
+    @Param("10000")
+    public int lines;
+
+    @Param("42")
+    public long seed;
+
+    private String[] names;
+    private String[] literals;
+
+    @Setup(Level.Trial)
+    public void collect() {
+        List<String> identifiers = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        TokenStream tokens = Lexer.scan(new ProgramGenerator(seed).generate(lines));
+        for (int i = 0; i < tokens.size(); i++) {
+            byte kind = tokens.kind(i);
+            if (kind == TokenKind.IDENTIFIER) {
+                identifiers.add(tokens.text(i));
+            } else if (TokenKind.isLiteral(kind)) {
+                values.add(tokens.text(i));
+            }
+        }
+        for (String invalid : INVALID) {
+            identifiers.add(invalid);
+            values.add(invalid);
+        }
+        names = identifiers.toArray(new String[0]);
+        literals = values.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public int identifierStringMatches() {
+        int valid = 0;
+        for (String name : names) {
+            if (name.matches("JSJ[a-z][0-9]+")) valid++;
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public int identifierCachedPattern() {
+        int valid = 0;
+        for (String name : names) {
+            if (RegExPattern.IDENTIFIER_PATTERN.matcher(name).matches()) valid++;
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public int identifierScanner() {
+        int valid = 0;
+        for (String name : names) {
+            if (RegExPattern.isValidIdentifier(name)) valid++;
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public int valueStringMatches() {
+        int valid = 0;
+        for (String value : literals) {
+            if (value.matches("^-?\\d+$") || value.matches("^-?\\d*\\.?\\d+$")
+                    || value.matches("^\".*\"$")) valid++;
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public int valueCachedPattern() {
+        int valid = 0;
+        for (String value : literals) {
+            if (RegExPattern.INTEGER_PATTERN.matcher(value).matches()
+                    || RegExPattern.FLOAT_PATTERN.matcher(value).matches()
+                    || RegExPattern.STRING_PATTERN.matcher(value).matches()) valid++;
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public int valueScanner() {
+        int valid = 0;
+        for (String value : literals) {
+            if (RegExPattern.isIntegerLiteral(value) || RegExPattern.isFloatLiteral(value)
+                    || RegExPattern.isStringLiteral(value)) valid++;
+        }
+        return valid;
+    }
+}
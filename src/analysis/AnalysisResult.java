@@ -0,0 +1,71 @@
+package src.analysis;
+
+import src.parser.Parser;
+import src.parser.Program;
+import src.tokens.Lexer;
+import src.tokens.TokenStream;
+
+/**
+ * Result of the front end of one compilation: tokens, syntax tree, symbols and errors.
+ * It has no Swing dependency so it can be built on any thread.
+ */
+public class AnalysisResult {
+    private final TokenStream tokens;
+    private final Program program;
+    private final SymbolTableModel symbols;
+    private final Diagnostics diagnostics;
+
+    AnalysisResult(TokenStream tokens, Program program, SymbolTableModel symbols,
+            Diagnostics diagnostics) {
+        this.tokens = tokens;
+        this.program = program;
+        this.symbols = symbols;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Scans, parses and analyzes a complete source
+     */
+    public static AnalysisResult analyze(CharSequence source) {
+        return analyze(Lexer.scan(source));
+    }
+
+    /**
+     * Parses and analyzes an already scanned source
+     */
+    public static AnalysisResult analyze(TokenStream tokens) {
+        SymbolTableModel symbols = new SymbolTableModel(tokens.symbols());
+        Diagnostics diagnostics = new Diagnostics();
+
+        Program program = Parser.parse(tokens, diagnostics);
+        program.accept(new SemanticAnalyzer(symbols, diagnostics));
+        symbols.addLexemes(tokens);
+
+        symbols.addErrorLexemes(diagnostics);
+        return new AnalysisResult(tokens, program, symbols, diagnostics);
+    }
+
+    /**
+     * Tokens of the whole source, or null when the result was assembled by an
+     * {@link IncrementalAnalyzer} from separately scanned chunks
+     */
+    public TokenStream getTokens() {
+        return tokens;
+    }
+
+    public Program getProgram() {
+        return program;
+    }
+
+    public SymbolTableModel getSymbols() {
+        return symbols;
+    }
+
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    public boolean hasErrors() {
+        return !diagnostics.isEmpty();
+    }
+}
@@ -0,0 +1,67 @@
+package src.analysis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import src.errors.ErrorListener;
+import src.errors.ErrorType;
+
+/**
+ * Errors of one compilation, collected without any Swing dependency
+ */
+public class Diagnostics implements ErrorListener {
+    private final List<Diagnostic> entries = new ArrayList<>();
+
+    @Override
+    public void addError(ErrorType errorType, String lexeme, int line, Object... args) {
+        // Token único con contador, igual que en la tabla de errores
+        String token = errorType.getToken() + "_" + (entries.size() + 1);
+        entries.add(new Diagnostic(token, lexeme, line, errorType.getMessage(args)));
+    }
+
+    public List<Diagnostic> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * A reported error: unique token, lexeme that caused it, line and description
+     */
+    public static class Diagnostic {
+        private final String token;
+        private final String lexeme;
+        private final int line;
+        private final String description;
+
+        public Diagnostic(String token, String lexeme, int line, String description) {
+            this.token = token;
+            this.lexeme = lexeme;
+            this.line = line;
+            this.description = description;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public String getLexeme() {
+            return lexeme;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+}
@@ -0,0 +1,582 @@
+package src.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import src.errors.ErrorListener;
+import src.errors.ErrorType;
+import src.parser.Declaration;
+import src.parser.Declarator;
+import src.parser.Parser;
+import src.parser.Program;
+import src.parser.Statement;
+import src.parser.WhileStatement;
+import src.tokens.Lexer;
+import src.tokens.LineShape;
+import src.tokens.SymbolPool;
+import src.tokens.TokenKind;
+import src.tokens.TokenStream;
+import src.validators.RegExPattern;
+
+/**
+ * Front end that keeps the work of previous analyses across edits of the source.
+ *
+ * The source is held as a list of lines and split into chunks: a top-level
+ * statement, or a whole while loop with its body. Each chunk keeps its tokens,
+ * syntax tree and errors, so after an edit only the chunks whose lines changed
+ * are scanned and parsed again. Semantic errors of a chunk depend on the
+ * declarations before it; a def-use index maps every name to the chunks that
+ * mention it, and when the first declaration of a name appears, moves or
+ * changes its type only those chunks are checked again.
+ *
+ * {@link #analyze()} gives the same symbols and errors as
+ * {@link AnalysisResult#analyze(CharSequence)} over the whole text. Chunks are
+ * scanned on their own, so the lines of the syntax tree count from the start of
+ * each chunk; only the reported errors carry lines of the whole source. While a
+ * line leaves a block comment open, every following line can change meaning,
+ * and the whole text is analyzed at once.
+ *
+ * The text of the lines is either kept here, as given to {@link #setText} and
+ * {@link #replaceLines}, or read from a {@link SourceText}, in which case only the
+ * shape and length of each line are kept. Lines are scanned while the source is
+ * locked for reading and the tokens of each chunk drop the text once scanned, so
+ * the rest of the analysis runs unlocked and an edit may arrive from another
+ * thread meanwhile. Apart from that, the analyzer is not thread-safe.
+ */
+public class IncrementalAnalyzer {
+    private final SourceText source;
+    private final List<Line> lines = new ArrayList<>();
+    private SymbolPool symbols = new SymbolPool();
+    private List<Chunk> chunks = new ArrayList<>();
+    private AnalysisResult result;      // Guardado con this, igual que edits
+    private int edits;
+    private int generation;
+
+    // Estado del escaneo, que corre mientras el texto no puede cambiar
+    private int scannedEdits;
+    private CharSequence current;
+    private TokenStream wholeTokens;
+
+    // Primera declaración de cada símbolo: el fragmento donde aparece y su tipo
+    private Chunk[] firstChunk = new Chunk[0];
+    private String[] firstType = new String[0];
+
+    // Índice definición-uso: fragmentos que mencionan cada símbolo
+    private final List<List<Chunk>> users = new ArrayList<>();
+
+    private final ChunkScope scope = new ChunkScope();
+    private int[] seen = new int[0];
+    private int seenStamp;
+
+    private int scannedChunks;
+    private int checkedChunks;
+
+    /**
+     * Analyzer of an empty source, which has a single empty line. It keeps the
+     * text of the lines it is given.
+     */
+    public IncrementalAnalyzer() {
+        this.source = null;
+        lines.add(new Line("", true));
+    }
+
+    /**
+     * Analyzer of a text kept elsewhere, which starts empty. Every edit of the
+     * text must be reported through {@link #replaceLines} while the text is
+     * locked for writing, such as from a document listener.
+     */
+    public IncrementalAnalyzer(SourceText source) {
+        this.source = source;
+        lines.add(new Line("", false));
+    }
+
+    /**
+     * Replaces the whole source
+     */
+    public void setText(CharSequence text) {
+        List<CharSequence> split = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                split.add(text.subSequence(start, i));
+                start = i + 1;
+            }
+        }
+        split.add(text.subSequence(start, text.length()));
+        replaceLines(0, lines.size(), split);
+    }
+
+    /**
+     * Replaces a range of lines. Nothing is analyzed until {@link #analyze()}.
+     * With a {@link SourceText} the added lines are only read for their shape.
+     * @param first Index (from 0) of the first line replaced
+     * @param removed Number of lines removed from that index
+     * @param added Text of the lines inserted in their place, without line breaks
+     */
+    public void replaceLines(int first, int removed, List<? extends CharSequence> added) {
+        if (first < 0 || removed < 0 || first + removed > lines.size()) {
+            throw new IndexOutOfBoundsException("Lines " + first + "+" + removed + " of " + lines.size());
+        }
+        List<Line> replacement = new ArrayList<>(added.size());
+        for (CharSequence text : added) {
+            replacement.add(new Line(text, source == null));
+        }
+        lines.subList(first, first + removed).clear();
+        lines.addAll(first, replacement);
+        synchronized (this) {
+            result = null;
+            edits++;
+        }
+    }
+
+    public int getLineCount() {
+        return lines.size();
+    }
+
+    /**
+     * The current source, with its lines joined by line breaks
+     */
+    public String getText() {
+        if (source == null) {
+            return getSource().toString();
+        }
+        StringBuilder text = new StringBuilder();
+        source.read(() -> text.append(source.text()));
+        return text.toString();
+    }
+
+    /**
+     * The current source, without copying the text. Kept lines give a view that
+     * later edits do not change; a {@link SourceText} gives its own text, only
+     * valid inside its read. Only one thread may read it at a time.
+     */
+    public CharSequence getSource() {
+        return source != null ? source.text() : new JoinedLines(texts(0, lines.size() - 1));
+    }
+
+    /**
+     * Analyzes the current source, reusing every chunk that was not edited
+     */
+    public AnalysisResult analyze() {
+        synchronized (this) {
+            if (result != null) {
+                return result;
+            }
+        }
+        generation++;
+        scannedChunks = 0;
+        checkedChunks = 0;
+
+        // Sólo el escaneo lee el texto; lo demás trabaja sobre los fragmentos ya escaneados
+        if (source != null) {
+            source.read(this::scanEdits);
+        } else {
+            scanEdits();
+        }
+
+        AnalysisResult analyzed;
+        if (wholeTokens != null) {
+            analyzed = AnalysisResult.analyze(wholeTokens);
+            wholeTokens = null;
+        } else {
+            updateDeclarations();
+            for (Chunk chunk : chunks) {
+                if (chunk.semanticErrors == null) {
+                    check(chunk);
+                }
+            }
+            analyzed = assemble();
+        }
+        synchronized (this) {
+            // Si llegó una edición mientras tanto, el resultado ya no es el del texto actual
+            if (edits == scannedEdits) {
+                result = analyzed;
+            }
+        }
+        return analyzed;
+    }
+
+    /**
+     * Chunks scanned and parsed again by the last analysis
+     */
+    public int getScannedChunks() {
+        return scannedChunks;
+    }
+
+    /**
+     * Chunks whose semantic errors were checked again by the last analysis
+     */
+    public int getCheckedChunks() {
+        return checkedChunks;
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Scans the lines edited since the last analysis, or the whole text while a
+     * block comment is open. Runs while the text cannot change.
+     */
+    private void scanEdits() {
+        synchronized (this) {
+            scannedEdits = edits;
+        }
+        current = source != null ? source.text() : null;
+        try {
+            for (Line line : lines) {
+                if (line.shape.endsInComment()) {
+                    wholeTokens = scanWhole();
+                    return;
+                }
+            }
+            splitChunks();
+        } finally {
+            current = null;
+        }
+    }
+
+    private TokenStream scanWhole() {
+        // Se descarta todo lo guardado; al cerrar el comentario se vuelve a construir
+        for (Chunk chunk : chunks) {
+            chunk.discarded = true;
+        }
+        chunks = new ArrayList<>();
+        symbols = new SymbolPool();
+        firstChunk = new Chunk[0];
+        firstType = new String[0];
+        users.clear();
+        return Lexer.scan(current != null ? current : getSource()).detach();
+    }
+
+    /**
+     * Splits the lines into chunks. A chunk ends at a line whose last token is
+     * ';' or '}' with every brace closed; the parser is always between two
+     * statements there, so each chunk parses the same as inside the whole text.
+     */
+    private void splitChunks() {
+        List<Chunk> previous = chunks;
+        chunks = new ArrayList<>(previous.size() + 16);
+        int start = -1;
+        int last = -1;
+        int depth = 0;
+        // Posiciones en el texto del inicio del fragmento y del final de su última línea
+        int from = 0;
+        int to = 0;
+        int offset = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            Line line = lines.get(i);
+            int lineStart = offset;
+            offset += line.length + 1;
+            if (!line.shape.hasTokens()) {
+                continue;
+            }
+            if (start < 0) {
+                start = i;
+                from = lineStart;
+            }
+            last = i;
+            to = lineStart + line.length;
+            depth = line.shape.depthAfter(depth);
+            if (depth == 0 && line.shape.endsWithTerminator()) {
+                addChunk(start, i, from, to);
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            addChunk(start, last, from, to);
+        }
+
+        for (Chunk chunk : previous) {
+            if (chunk.generation != generation) {
+                chunk.discarded = true;
+            }
+        }
+    }
+
+    private void addChunk(int start, int end, int from, int to) {
+        Line first = lines.get(start);
+        Chunk chunk = first.chunk;
+        if (chunk == null || chunk.discarded || !chunk.hasLines(lines, start, end)) {
+            chunk = scan(start, end, from, to);
+            first.chunk = chunk;
+        }
+        chunk.generation = generation;
+        chunk.index = chunks.size();
+        chunk.firstLine = start + 1;
+        chunks.add(chunk);
+    }
+
+    private Chunk scan(int start, int end, int from, int to) {
+        scannedChunks++;
+        // El texto se lee sin unirlo en una copia, y los tokens lo sueltan al terminar
+        CharSequence text;
+        if (current != null) {
+            text = current.subSequence(from, to);
+        } else {
+            String[] texts = texts(start, end);
+            text = texts.length == 1 ? texts[0] : new JoinedLines(texts);
+        }
+        TokenStream tokens = Lexer.scan(text, 1, symbols).detach();
+        Chunk chunk = new Chunk(lines.subList(start, end + 1).toArray(new Line[0]), tokens);
+        ErrorRecorder syntaxErrors = new ErrorRecorder();
+        chunk.statements = Parser.parse(tokens, syntaxErrors).getStatements();
+        chunk.syntaxErrors = syntaxErrors.errors;
+        collectDeclarations(chunk, chunk.statements);
+
+        // Cada nombre mencionado entra una sola vez en el índice
+        if (seen.length < symbols.size()) {
+            seen = Arrays.copyOf(seen, Math.max(symbols.size(), seen.length * 2));
+        }
+        seenStamp++;
+        for (int i = 0; i < tokens.size(); i++) {
+            int symbol = tokens.symbol(i);
+            if (tokens.kind(i) == TokenKind.IDENTIFIER && seen[symbol] != seenStamp) {
+                seen[symbol] = seenStamp;
+                addUser(symbol, chunk);
+            }
+        }
+        return chunk;
+    }
+
+    private String[] texts(int start, int end) {
+        String[] texts = new String[Math.max(end - start + 1, 0)];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = lines.get(start + i).text;
+        }
+        return texts;
+    }
+
+    /**
+     * Declarations with a valid identifier, in the order the semantic analyzer visits them
+     */
+    private static void collectDeclarations(Chunk chunk, List<Statement> statements) {
+        for (Statement statement : statements) {
+            if (statement instanceof Declaration) {
+                Declaration declaration = (Declaration) statement;
+                for (Declarator declarator : declaration.getDeclarators()) {
+                    if (RegExPattern.isValidIdentifier(declarator.getName().getName())) {
+                        chunk.declare(declarator.getName().getSymbol(), declaration.getType());
+                    }
+                }
+            } else if (statement instanceof WhileStatement) {
+                collectDeclarations(chunk, ((WhileStatement) statement).getBody());
+            }
+        }
+    }
+
+    private void addUser(int symbol, Chunk chunk) {
+        while (users.size() <= symbol) {
+            users.add(new ArrayList<>(2));
+        }
+        List<Chunk> list = users.get(symbol);
+        // Los fragmentos descartados se quitan cada vez que la lista duplica su tamaño
+        if (list.size() >= 8 && Integer.bitCount(list.size()) == 1) {
+            list.removeIf(user -> user.discarded);
+        }
+        list.add(chunk);
+    }
+
+    /**
+     * Recomputes the first declaration of every name and invalidates the
+     * semantic errors of the chunks that mention a name whose one changed
+     */
+    private void updateDeclarations() {
+        int size = symbols.size();
+        Chunk[] chunkOf = new Chunk[size];
+        String[] typeOf = new String[size];
+        for (Chunk chunk : chunks) {
+            for (int k = 0; k < chunk.declaredCount; k++) {
+                int symbol = chunk.declared[k];
+                if (chunkOf[symbol] == null) {
+                    chunkOf[symbol] = chunk;
+                    typeOf[symbol] = chunk.declaredTypes[k];
+                }
+            }
+        }
+
+        for (int symbol = 0; symbol < size; symbol++) {
+            Chunk before = symbol < firstChunk.length ? firstChunk[symbol] : null;
+            String typeBefore = symbol < firstType.length ? firstType[symbol] : null;
+            if ((before != chunkOf[symbol] || !Objects.equals(typeBefore, typeOf[symbol]))
+                    && symbol < users.size()) {
+                // Marcar también los descartados no cuesta nada; addUser los quita después
+                for (Chunk user : users.get(symbol)) {
+                    user.semanticErrors = null;
+                }
+            }
+        }
+        firstChunk = chunkOf;
+        firstType = typeOf;
+    }
+
+    private void check(Chunk chunk) {
+        checkedChunks++;
+        ErrorRecorder semanticErrors = new ErrorRecorder();
+        scope.enter(chunk);
+        SemanticAnalyzer analyzer = new SemanticAnalyzer(scope, semanticErrors);
+        for (Statement statement : chunk.statements) {
+            statement.accept(analyzer);
+        }
+        chunk.semanticErrors = semanticErrors.errors;
+    }
+
+    /**
+     * Builds the result of the whole source from the chunks, in the same order
+     * as a full analysis: syntax errors first, then semantic errors
+     */
+    private AnalysisResult assemble() {
+        SymbolTableModel table = new SymbolTableModel(symbols);
+        for (int symbol = 0; symbol < firstChunk.length; symbol++) {
+            if (firstChunk[symbol] != null) {
+                table.declare(symbol, firstType[symbol]);
+            }
+        }
+
+        Diagnostics diagnostics = new Diagnostics();
+        List<Statement> statements = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            chunk.report(chunk.syntaxErrors, diagnostics);
+            statements.addAll(chunk.statements);
+            table.addLexemes(chunk.tokens);
+        }
+        for (Chunk chunk : chunks) {
+            chunk.report(chunk.semanticErrors, diagnostics);
+        }
+
+        table.addErrorLexemes(diagnostics);
+        return new AnalysisResult(null, new Program(statements, symbols), table, diagnostics);
+    }
+
+    /**
+     * A line of the source with what the chunk split needs to know about it
+     */
+    private static final class Line {
+        final String text;  // null cuando el texto se lee de un SourceText
+        final int length;
+        final LineShape shape;
+        Chunk chunk;        // Fragmento que empezaba en esta línea
+
+        Line(CharSequence text, boolean keep) {
+            this.text = keep ? text.toString() : null;
+            this.length = text.length();
+            this.shape = LineShape.of(text, false);
+        }
+    }
+
+    /**
+     * Consecutive lines analyzed together, with the results kept between edits
+     */
+    private static final class Chunk {
+        final Line[] lines;
+        final TokenStream tokens;
+        List<Statement> statements;
+        List<RecordedError> syntaxErrors;
+        List<RecordedError> semanticErrors;   // null cuando hay que revisarlo de nuevo
+
+        int[] declared = new int[4];
+        String[] declaredTypes = new String[4];
+        int declaredCount;
+
+        int index;
+        int firstLine;
+        int generation;
+        boolean discarded;
+
+        Chunk(Line[] lines, TokenStream tokens) {
+            this.lines = lines;
+            this.tokens = tokens;
+        }
+
+        void declare(int symbol, String type) {
+            if (declaredCount == declared.length) {
+                declared = Arrays.copyOf(declared, declaredCount * 2);
+                declaredTypes = Arrays.copyOf(declaredTypes, declaredCount * 2);
+            }
+            declared[declaredCount] = symbol;
+            declaredTypes[declaredCount++] = type;
+        }
+
+        boolean hasLines(List<Line> source, int start, int end) {
+            if (lines.length != end - start + 1) {
+                return false;
+            }
+            for (int i = 0; i < lines.length; i++) {
+                if (lines[i] != source.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void report(List<RecordedError> errors, ErrorListener listener) {
+            for (RecordedError error : errors) {
+                listener.addError(error.type, error.lexeme, firstLine + error.line - 1, error.args);
+            }
+        }
+    }
+
+    /**
+     * Declarations seen from one chunk: its own, then the first declaration of
+     * each name when it is in an earlier chunk
+     */
+    private final class ChunkScope implements Scope {
+        private Chunk chunk;
+        private int[] localStamp = new int[0];
+        private String[] localType = new String[0];
+        private int stamp;
+
+        void enter(Chunk chunk) {
+            this.chunk = chunk;
+            stamp++;
+        }
+
+        @Override
+        public String getType(int symbol) {
+            if (symbol < localStamp.length && localStamp[symbol] == stamp) {
+                return localType[symbol];
+            }
+            if (symbol < firstChunk.length && firstChunk[symbol] != null
+                    && firstChunk[symbol].index < chunk.index) {
+                return firstType[symbol];
+            }
+            return null;
+        }
+
+        @Override
+        public void declare(int symbol, String type) {
+            if (symbol >= localStamp.length) {
+                int capacity = Math.max(symbol + 1, symbols.size());
+                localStamp = Arrays.copyOf(localStamp, capacity);
+                localType = Arrays.copyOf(localType, capacity);
+            }
+            localStamp[symbol] = stamp;
+            localType[symbol] = type;
+        }
+    }
+
+    private static final class RecordedError {
+        final ErrorType type;
+        final String lexeme;
+        final int line;
+        final Object[] args;
+
+        RecordedError(ErrorType type, String lexeme, int line, Object[] args) {
+            this.type = type;
+            this.lexeme = lexeme;
+            this.line = line;
+            this.args = args;
+        }
+    }
+
+    private static final class ErrorRecorder implements ErrorListener {
+        final List<RecordedError> errors = new ArrayList<>();
+
+        @Override
+        public void addError(ErrorType errorType, String lexeme, int line, Object... args) {
+            errors.add(new RecordedError(errorType, lexeme, line, args));
+        }
+    }
+}
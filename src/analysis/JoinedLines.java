@@ -0,0 +1,69 @@
+package src.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Read-only view of several lines joined by line breaks, without copying them
+ * into one string. Sequential reads, like the lexer's, stay on the current line;
+ * a jump to another line costs a binary search. Not thread-safe.
+ */
+final class JoinedLines implements CharSequence {
+    private final String[] lines;
+    private final int[] starts;
+    private final int length;
+    private int current;
+
+    JoinedLines(String[] lines) {
+        this.lines = lines;
+        this.starts = new int[lines.length];
+        int offset = 0;
+        for (int i = 0; i < lines.length; i++) {
+            starts[i] = offset;
+            offset += lines[i].length() + 1;
+        }
+        this.length = Math.max(offset - 1, 0);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + length);
+        }
+        int line = current;
+        if (index < starts[line] || (line + 1 < starts.length && index >= starts[line + 1])) {
+            // Al leer en orden sólo se pasa a la línea siguiente
+            if (line + 1 < starts.length && index >= starts[line + 1]
+                    && (line + 2 == starts.length || index < starts[line + 2])) {
+                line++;
+            } else {
+                int found = Arrays.binarySearch(starts, index);
+                line = found >= 0 ? found : -found - 2;
+            }
+            current = line;
+        }
+        int column = index - starts[line];
+        return column < lines[line].length() ? lines[line].charAt(column) : '\n';
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Range " + start + "-" + end + " of " + length);
+        }
+        StringBuilder text = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            text.append(charAt(i));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+}
@@ -0,0 +1,13 @@
+package src.analysis;
+
+/**
+ * Declared variables visible to the {@link SemanticAnalyzer}, by symbol id
+ */
+public interface Scope {
+    /**
+     * @return The declared type of the identifier, or null if it is not declared
+     */
+    String getType(int symbol);
+
+    void declare(int symbol, String type);
+}
@@ -0,0 +1,181 @@
+package src.analysis;
+
+import src.errors.ErrorListener;
+import src.errors.ErrorType;
+import src.parser.Assignment;
+import src.parser.AstVisitor;
+import src.parser.BinaryExpression;
+import src.parser.Comparison;
+import src.parser.Declaration;
+import src.parser.Declarator;
+import src.parser.Expression;
+import src.parser.Identifier;
+import src.parser.Literal;
+import src.parser.LogicalExpression;
+import src.parser.Program;
+import src.parser.Statement;
+import src.parser.WhileStatement;
+import src.tokens.TokenType;
+import src.validators.RegExPattern;
+
+/**
+ * Semantic analysis over the syntax tree, independent of the Swing tables.
+ * Declares variables in the symbol table and validates every use against it.
+ * Identifiers are looked up by their symbol id, without hashing their names.
+ */
+public class SemanticAnalyzer implements AstVisitor<Void> {
+    private final Scope symbols;
+    private final ErrorListener errorTable;
+
+    /**
+     * @param symbols Declared variables, filled during the analysis
+     * @param errorTable Listener that receives the semantic errors
+     */
+    public SemanticAnalyzer(Scope symbols, ErrorListener errorTable) {
+        this.symbols = symbols;
+        this.errorTable = errorTable;
+    }
+
+    @Override
+    public Void visitProgram(Program program) {
+        for (Statement statement : program.getStatements()) {
+            statement.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitDeclaration(Declaration declaration) {
+        for (Declarator declarator : declaration.getDeclarators()) {
+            declare(declarator, declaration.getType());
+        }
+        return null;
+    }
+
+    private void declare(Declarator declarator, String type) {
+        String identifier = declarator.getName().getName();
+        int symbol = declarator.getName().getSymbol();
+        int lineNumber = declarator.getLine();
+
+        if (!RegExPattern.isValidIdentifier(identifier)) {
+            errorTable.addError(ErrorType.INVALID_IDENTIFIER, identifier, lineNumber);
+            return;
+        }
+
+        // Check if variable was already declared
+        if (symbols.getType(symbol) != null) {
+            errorTable.addError(ErrorType.DUPLICATE_DECLARATION, identifier, lineNumber);
+            return;
+        }
+
+        symbols.declare(symbol, type);
+
+        // Process initialization
+        if (declarator.isMissingInitializer()) {
+            errorTable.addError(ErrorType.SYNTAX_ERROR, identifier, lineNumber);
+        } else if (declarator.getInitializer() != null) {
+            checkValue(declarator.getInitializer(), type, lineNumber);
+        }
+    }
+
+    @Override
+    public Void visitDeclarator(Declarator declarator) {
+        return null;
+    }
+
+    @Override
+    public Void visitAssignment(Assignment assignment) {
+        String variable = assignment.getTarget().getName();
+        int lineNumber = assignment.getLine();
+
+        // Check if variable exists
+        String varType = symbols.getType(assignment.getTarget().getSymbol());
+        if (varType == null) {
+            errorTable.addError(ErrorType.UNDECLARED_VARIABLE, variable, lineNumber);
+            return null;
+        }
+
+        checkValue(assignment.getValue(), varType, lineNumber);
+        return null;
+    }
+
+    /**
+     * Valida cada operando de la expresión contra el tipo de la variable destino.
+     * Sólo se reporta el primer error de la expresión.
+     * @return true if every operand is compatible
+     */
+    private boolean checkValue(Expression expression, String varType, int lineNumber) {
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            return checkValue(binary.getLeft(), varType, lineNumber)
+                && checkValue(binary.getRight(), varType, lineNumber);
+        }
+
+        if (expression instanceof Identifier) {
+            Identifier identifier = (Identifier) expression;
+            String operand = identifier.getName();
+            String operandType = symbols.getType(identifier.getSymbol());
+            if (operandType == null) {
+                errorTable.addError(ErrorType.UNDECLARED_VARIABLE, operand, lineNumber);
+                return false;
+            }
+            if (!operandType.equals(varType)) {
+                errorTable.addError(ErrorType.TYPE_MISMATCH, operand, lineNumber, operandType, varType);
+                return false;
+            }
+            return true;
+        }
+
+        // Check if literal value matches the variable type
+        String value = ((Literal) expression).getText();
+        if (!TokenType.getType(varType).isValidValue(value)) {
+            errorTable.addError(ErrorType.TYPE_MISMATCH, value, lineNumber, value, varType);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Void visitWhile(WhileStatement whileStatement) {
+        whileStatement.getCondition().accept(this);
+        for (Statement statement : whileStatement.getBody()) {
+            statement.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitIdentifier(Identifier identifier) {
+        // Verificar si la variable existe
+        if (symbols.getType(identifier.getSymbol()) == null) {
+            errorTable.addError(ErrorType.UNDECLARED_VARIABLE, identifier.getName(), identifier.getLine());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitLiteral(Literal literal) {
+        return null;
+    }
+
+    @Override
+    public Void visitBinary(BinaryExpression binary) {
+        binary.getLeft().accept(this);
+        binary.getRight().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitComparison(Comparison comparison) {
+        comparison.getLeft().accept(this);
+        comparison.getRight().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitLogical(LogicalExpression logical) {
+        logical.getLeft().accept(this);
+        logical.getRight().accept(this);
+        return null;
+    }
+}
@@ -0,0 +1,19 @@
+package src.analysis;
+
+/**
+ * Source kept outside an {@link IncrementalAnalyzer}, such as the document of an
+ * editor. The analyzer keeps only the shape and length of each line and reads the
+ * text from here, inside {@link #read(Runnable)}, when it scans the lines again.
+ */
+public interface SourceText {
+    /**
+     * Runs an action while the text cannot change
+     */
+    void read(Runnable action);
+
+    /**
+     * The whole current text, read without copying it. Only valid inside
+     * {@link #read(Runnable)}.
+     */
+    CharSequence text();
+}
@@ -0,0 +1,162 @@
+package src.analysis;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import src.tokens.SymbolPool;
+import src.tokens.TokenKind;
+import src.tokens.TokenStream;
+import src.tokens.TokenType;
+
+/**
+ * Symbol table data without any Swing dependency.
+ * Keeps the declared identifiers with their types and the lexemes listed in the
+ * symbol table, in order of first appearance. Declared types are stored by the
+ * identifier's id in the source's {@link SymbolPool}.
+ */
+public class SymbolTableModel implements Scope {
+    private final SymbolPool symbols;
+    private String[] declaredTypes;
+    private final LinkedHashMap<String, String> lexemes = new LinkedHashMap<>();
+    private boolean[] listed = new boolean[0];
+    private final boolean[] listedKinds = new boolean[Byte.MAX_VALUE + 1];
+
+    /**
+     * Empty table with its own symbol pool
+     */
+    public SymbolTableModel() {
+        this(new SymbolPool());
+    }
+
+    /**
+     * @param symbols Pool of the scanned source; identifiers are declared by their id in it
+     */
+    public SymbolTableModel(SymbolPool symbols) {
+        this.symbols = symbols;
+        this.declaredTypes = new String[Math.max(symbols.size(), 16)];
+    }
+
+    public SymbolPool getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Declares an identifier. The semantic analyzer calls this for each declaration.
+     * @param symbol Id of the identifier in the symbol pool
+     * @param type Declared type
+     */
+    @Override
+    public void declare(int symbol, String type) {
+        if (symbol >= declaredTypes.length) {
+            declaredTypes = Arrays.copyOf(declaredTypes, Math.max(symbol + 1, symbols.size()));
+        }
+        declaredTypes[symbol] = type;
+    }
+
+    /**
+     * Obtains the declared type of an identifier by its id
+     * @return The type, or null if it was not declared
+     */
+    @Override
+    public String getType(int symbol) {
+        return symbol >= 0 && symbol < declaredTypes.length ? declaredTypes[symbol] : null;
+    }
+
+    /**
+     * Obtains the declared type of an identifier
+     * @param lexeme The lexeme to look up
+     * @return The type of the lexeme, or null if it was not declared
+     */
+    public String getType(String lexeme) {
+        return getType(symbols.find(lexeme));
+    }
+
+    /**
+     * Checks if an identifier was declared
+     * @param lexeme The lexeme to check
+     * @return true if the lexeme was declared
+     */
+    public boolean containsLexeme(String lexeme) {
+        return getType(lexeme) != null;
+    }
+
+    /**
+     * Lists a lexeme with its type. A lexeme is only listed the first time it appears.
+     */
+    public void addLexeme(String lexeme, String type) {
+        lexemes.putIfAbsent(lexeme, type);
+    }
+
+    /**
+     * Lists the lexeme that caused each error as undefined, so it also appears in
+     * the symbol table. Lexemes already listed keep their type.
+     */
+    public void addErrorLexemes(Diagnostics diagnostics) {
+        for (Diagnostics.Diagnostic diagnostic : diagnostics.getEntries()) {
+            addLexeme(diagnostic.getLexeme(), TokenType.UNDEFINED.toString());
+        }
+    }
+
+    /**
+     * Lists every lexeme of a source; identifiers get their declared type.
+     * Several streams that share this table's pool can be listed one after another.
+     */
+    public void addLexemes(TokenStream tokens) {
+        // Los símbolos ya listados se saltan por id, sin buscar su texto en el mapa
+        if (listed.length < tokens.symbols().size()) {
+            listed = Arrays.copyOf(listed, tokens.symbols().size());
+        }
+        for (int i = 0; i < tokens.size(); i++) {
+            byte kind = tokens.kind(i);
+            int symbol = tokens.symbol(i);
+            if (symbol != TokenStream.NO_SYMBOL) {
+                if (listed[symbol]) {
+                    continue;
+                }
+                listed[symbol] = true;
+            } else if (kind != TokenKind.UNKNOWN) {
+                // Palabras reservadas y operadores siempre se escriben igual
+                if (listedKinds[kind]) {
+                    continue;
+                }
+                listedKinds[kind] = true;
+            }
+            String lexeme = tokens.text(i);
+            if (lexemes.containsKey(lexeme)) {
+                continue;
+            }
+            if (kind == TokenKind.IDENTIFIER) {
+                String type = getType(symbol);
+                lexemes.put(lexeme, type != null ? type : TokenType.UNDEFINED.toString());
+            } else {
+                lexemes.put(lexeme, lexemeType(kind));
+            }
+        }
+    }
+
+    /**
+     * Listed lexemes and their types, in order of first appearance
+     */
+    public Map<String, String> getLexemes() {
+        return Collections.unmodifiableMap(lexemes);
+    }
+
+    public int size() {
+        return lexemes.size();
+    }
+
+    private static String lexemeType(byte kind) {
+        if (TokenKind.isReservedWord(kind)) return TokenType.RESERVED_WORD.toString();
+        if (kind == TokenKind.ASSIGN) return TokenType.ASSIGNMENT_OPERATOR.toString();
+        if (TokenKind.isArithmeticOperator(kind)) return TokenType.ARITHMETIC_OPERATOR.toString();
+        if (TokenKind.isRelationalOperator(kind)) return TokenType.RELATIONAL_OPERATOR.toString();
+        if (TokenKind.isLogicalOperator(kind)) return "Logical Operator";
+        if (kind == TokenKind.INTEGER_LITERAL) return TokenType.INTEGER_TYPE.toString();
+        if (kind == TokenKind.FLOAT_LITERAL) return TokenType.FLOAT_TYPE.toString();
+        if (kind == TokenKind.STRING_LITERAL) return TokenType.STRING_TYPE.toString();
+        if (kind == TokenKind.UNKNOWN) return TokenType.UNDEFINED.toString();
+        return TokenType.DELIMITER.toString();
+    }
+}
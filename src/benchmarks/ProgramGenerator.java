@@ -0,0 +1,228 @@
+package src.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of large, valid programs for load and scaling tests.
+ * The same seed and settings always produce the same source.
+ *
+ * Programs contain IntegerType, FloatType and StringType declarations with
+ * {@code JSJ[a-z][0-9]+} identifiers, arithmetic chains, and nested while loops
+ * whose conditions mix {@code &&} and {@code ||}. Every variable is declared
+ * before use and every assignment is type correct, so the whole source reaches
+ * the code generators without errors.
+ */
+public class ProgramGenerator {
+    private static final String[] ARITHMETIC = {"+", "-", "*", "/"};
+    private static final String[] RELATIONAL = {"<", ">", "<=", ">=", "==", "!="};
+
+    private final long seed;
+    private final int maxDepth;
+    private final int maxChainLength;
+
+    private Random random;
+    private StringBuilder out;
+    private int lines;
+    private int nextId;
+    private List<String> integerVars;
+    private List<String> floatVars;
+    private List<String> stringVars;
+
+    /**
+     * Generator with loops nested up to three levels and chains of up to four operands
+     */
+    public ProgramGenerator(long seed) {
+        this(seed, 3, 4);
+    }
+
+    /**
+     * @param seed Seed of the pseudo-random sequence
+     * @param maxDepth Maximum nesting of while loops, 0 for straight-line code
+     * @param maxChainLength Maximum number of operands of an arithmetic chain
+     */
+    public ProgramGenerator(long seed, int maxDepth, int maxChainLength) {
+        if (maxDepth < 0 || maxChainLength < 1) {
+            throw new IllegalArgumentException("Invalid depth or chain length");
+        }
+        this.seed = seed;
+        this.maxDepth = maxDepth;
+        this.maxChainLength = maxChainLength;
+    }
+
+    /**
+     * Generates a program of about the given number of lines. The last loop
+     * may end a few lines past it.
+     */
+    public String generate(int targetLines) {
+        random = new Random(seed);
+        out = new StringBuilder(targetLines * 32);
+        lines = 0;
+        nextId = 0;
+        integerVars = new ArrayList<>();
+        floatVars = new ArrayList<>();
+        stringVars = new ArrayList<>();
+
+        while (lines < targetLines) {
+            int roll = random.nextInt(100);
+            if (integerVars.size() < 3 || roll < 15) {
+                declaration();
+            } else if (roll < 35 && maxDepth > 0) {
+                whileLoop(0, targetLines);
+            } else {
+                assignment(0);
+            }
+        }
+        return out.toString();
+    }
+
+    private void declaration() {
+        int roll = random.nextInt(10);
+        int count = 1 + random.nextInt(3);
+        StringBuilder line = new StringBuilder();
+        List<String> declared = new ArrayList<>(count);
+
+        if (roll < 6) {
+            line.append("IntegerType ");
+            for (int i = 0; i < count; i++) {
+                String name = newIdentifier();
+                if (i > 0) line.append(", ");
+                line.append(name);
+                if (random.nextBoolean()) {
+                    line.append(" = ").append(integerOperand());
+                }
+                declared.add(name);
+            }
+            integerVars.addAll(declared);
+        } else if (roll < 8) {
+            line.append("FloatType ");
+            for (int i = 0; i < count; i++) {
+                String name = newIdentifier();
+                if (i > 0) line.append(", ");
+                line.append(name).append(" = ").append(floatLiteral());
+                declared.add(name);
+            }
+            floatVars.addAll(declared);
+        } else {
+            line.append("StringType ");
+            for (int i = 0; i < count; i++) {
+                String name = newIdentifier();
+                if (i > 0) line.append(", ");
+                line.append(name).append(" = ").append(stringLiteral());
+                declared.add(name);
+            }
+            stringVars.addAll(declared);
+        }
+        line.append(';');
+        emit(0, line);
+    }
+
+    private void assignment(int depth) {
+        StringBuilder line = new StringBuilder();
+        int roll = random.nextInt(10);
+        if (roll < 8 || (floatVars.isEmpty() && stringVars.isEmpty())) {
+            line.append(pick(integerVars)).append(" = ");
+            arithmeticChain(line);
+        } else if (roll < 9 && !floatVars.isEmpty()) {
+            line.append(pick(floatVars)).append(" = ");
+            line.append(floatVars.size() > 1 && random.nextBoolean() ? pick(floatVars) : floatLiteral());
+            if (random.nextBoolean()) {
+                line.append(' ').append(ARITHMETIC[random.nextInt(2)]).append(' ').append(floatLiteral());
+            }
+        } else if (!stringVars.isEmpty()) {
+            line.append(pick(stringVars)).append(" = ");
+            line.append(stringVars.size() > 1 && random.nextBoolean() ? pick(stringVars) : stringLiteral());
+        } else {
+            line.append(pick(integerVars)).append(" = ");
+            arithmeticChain(line);
+        }
+        line.append(';');
+        emit(depth, line);
+    }
+
+    /**
+     * Integer arithmetic with 1 to maxChainLength operands, sometimes grouping
+     * the first two in parentheses
+     */
+    private void arithmeticChain(StringBuilder line) {
+        int operands = 1 + random.nextInt(maxChainLength);
+        boolean group = operands >= 3 && random.nextInt(4) == 0;
+        if (group) line.append('(');
+        line.append(integerOperand());
+        for (int i = 1; i < operands; i++) {
+            line.append(' ').append(ARITHMETIC[random.nextInt(ARITHMETIC.length)]).append(' ');
+            line.append(integerOperand());
+            if (group && i == 1) line.append(')');
+        }
+    }
+
+    private void whileLoop(int depth, int targetLines) {
+        StringBuilder header = new StringBuilder("while (");
+        condition(header, 1 + random.nextInt(4));
+        header.append(") {");
+        emit(depth, header);
+
+        int statements = 1 + random.nextInt(4);
+        for (int i = 0; i < statements; i++) {
+            if (depth + 1 < maxDepth && random.nextInt(3) == 0 && lines < targetLines) {
+                whileLoop(depth + 1, targetLines);
+            } else {
+                assignment(depth + 1);
+            }
+        }
+        emit(depth, new StringBuilder("}"));
+    }
+
+    /**
+     * Comparisons joined by a random mix of && and ||, with an occasional
+     * parenthesized group
+     */
+    private void condition(StringBuilder line, int comparisons) {
+        if (comparisons >= 3 && random.nextInt(3) == 0) {
+            int split = 1 + random.nextInt(comparisons - 1);
+            line.append('(');
+            condition(line, split);
+            line.append(')').append(random.nextBoolean() ? " && " : " || ");
+            condition(line, comparisons - split);
+            return;
+        }
+        for (int i = 0; i < comparisons; i++) {
+            if (i > 0) line.append(random.nextBoolean() ? " && " : " || ");
+            line.append(pick(integerVars)).append(' ')
+                .append(RELATIONAL[random.nextInt(RELATIONAL.length)]).append(' ')
+                .append(integerOperand());
+        }
+    }
+
+    private String integerOperand() {
+        if (!integerVars.isEmpty() && random.nextInt(3) != 0) {
+            return pick(integerVars);
+        }
+        return Integer.toString(1 + random.nextInt(99));
+    }
+
+    private String floatLiteral() {
+        return random.nextInt(100) + "." + (1 + random.nextInt(9));
+    }
+
+    private String stringLiteral() {
+        return "\"s" + random.nextInt(1000) + "\"";
+    }
+
+    private String newIdentifier() {
+        return "JSJ" + (char) ('a' + random.nextInt(26)) + (nextId++);
+    }
+
+    private String pick(List<String> vars) {
+        return vars.get(random.nextInt(vars.size()));
+    }
+
+    private void emit(int depth, CharSequence line) {
+        for (int i = 0; i < depth; i++) {
+            out.append("    ");
+        }
+        out.append(line).append('\n');
+        lines++;
+    }
+}
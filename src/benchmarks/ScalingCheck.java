@@ -0,0 +1,95 @@
+package src.benchmarks;
+
+import java.util.Arrays;
+
+import src.analysis.AnalysisResult;
+import src.compiler.AssemblyGenerator;
+import src.compiler.TripletGenerator;
+
+/**
+ * Checks that compile time grows roughly linearly with the size of the source.
+ * Compiles generated programs of doubling sizes, fits the growth exponent between
+ * the smallest and the largest one, and exits with status 1 when it exceeds the
+ * limit (1.0 is linear, 2.0 quadratic).
+ *
+ * <pre>
+ * java src.benchmarks.ScalingCheck [--sizes 5000,10000,20000,40000,80000] [--max-exponent 1.3]
+ * </pre>
+ */
+public class ScalingCheck {
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        int[] sizes = {5_000, 10_000, 20_000, 40_000, 80_000};
+        double maxExponent = 1.3;
+        long seed = 7;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = Arrays.stream(args[++i].split(",")).map(String::trim)
+                        .mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--max-exponent":
+                    maxExponent = Double.parseDouble(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        ProgramGenerator generator = new ProgramGenerator(seed);
+
+        // Calentamiento para que el JIT compile las rutas calientes antes de medir
+        String warmup = generator.generate(sizes[0]);
+        for (int i = 0; i < RUNS; i++) {
+            compile(warmup);
+        }
+
+        double[] millis = new double[sizes.length];
+        System.out.printf("%8s %12s %12s%n", "Lines", "ms", "us/line");
+        for (int s = 0; s < sizes.length; s++) {
+            String source = generator.generate(sizes[s]);
+            AnalysisResult check = AnalysisResult.analyze(source);
+            if (check.hasErrors()) {
+                System.err.println("Generated program has errors, first: "
+                    + check.getDiagnostics().getEntries().get(0).getDescription());
+                System.exit(2);
+            }
+
+            long[] runs = new long[RUNS];
+            for (int r = 0; r < RUNS; r++) {
+                long start = System.nanoTime();
+                compile(source);
+                runs[r] = System.nanoTime() - start;
+            }
+            Arrays.sort(runs);
+            millis[s] = runs[RUNS / 2] / 1e6;
+            System.out.printf("%8d %12.2f %12.3f%n", sizes[s], millis[s], millis[s] * 1000 / sizes[s]);
+        }
+
+        int last = sizes.length - 1;
+        double exponent = Math.log(millis[last] / millis[0]) / Math.log((double) sizes[last] / sizes[0]);
+        System.out.printf("Growth exponent: %.2f (limit %.2f)%n", exponent, maxExponent);
+        if (exponent > maxExponent) {
+            System.err.println("Compile time grows faster than linear");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the whole pipeline except writing files
+     */
+    private static int compile(String source) {
+        AnalysisResult analysis = AnalysisResult.analyze(source);
+        TripletGenerator triplets = new TripletGenerator();
+        triplets.generateTriplo(analysis.getProgram(), source);
+        AssemblyGenerator assembly = new AssemblyGenerator();
+        assembly.generateAssembly(triplets.getTriplet(), triplets.getLiveVariables());
+        return assembly.getAssemblyCode().length();
+    }
+}
@@ -0,0 +1,202 @@
+package src.compiler;
+
+import java.util.Arrays;
+
+import src.tokens.SymbolPool;
+
+/**
+ * Código ensamblador guardado en arreglos primitivos paralelos, antes de
+ * escribirlo como texto. Cada instrucción tiene un código de operación (byte) y
+ * dos operandos enteros: ids de una {@link SymbolPool} propia, donde los
+ * registros ocupan los primeros ids, o el número de línea de una etiqueta en las
+ * etiquetas y los saltos.
+ */
+public class AssemblyCode {
+    // Etiqueta L<línea>:
+    public static final byte LABEL = 0;
+
+    // Instrucciones con destino y fuente
+    public static final byte MOV = 1;
+    public static final byte ADD = 2;
+    public static final byte SUB = 3;
+    public static final byte CMP = 4;
+    public static final byte XOR = 5;
+
+    // Multiplicación y división sin signo: de 8 bits sobre AL con BL, o de 16 sobre AX con DX
+    public static final byte MUL = 6;
+    public static final byte DIV = 7;
+
+    // Desplazamientos de una posición (SHL R, 1) y la pila
+    public static final byte SHL = 8;
+    public static final byte SHR = 9;
+    public static final byte PUSH = 10;
+    public static final byte POP = 11;
+
+    // Saltos a una etiqueta
+    public static final byte JMP = 12;
+    public static final byte JL = 13;
+    public static final byte JG = 14;
+    public static final byte JLE = 15;
+    public static final byte JGE = 16;
+    public static final byte JE = 17;
+    public static final byte JNE = 18;
+
+    private static final String[] MNEMONICS = {
+        "", "MOV", "ADD", "SUB", "CMP", "XOR", "MUL", "DIV",
+        "SHL", "SHR", "PUSH", "POP",
+        "JMP", "JL", "JG", "JLE", "JGE", "JE", "JNE"
+    };
+
+    // Registros: ids fijos en la tabla de operandos
+    public static final int AX = 0;
+    public static final int BX = 1;
+    public static final int CX = 2;
+    public static final int DX = 3;
+    public static final int SI = 4;
+    public static final int DI = 5;
+    public static final int BP = 6;
+    public static final int AL = 7;
+    public static final int AH = 8;
+    public static final int BL = 9;
+
+    private static final String[] REGISTER_NAMES = {
+        "AX", "BX", "CX", "DX", "SI", "DI", "BP", "AL", "AH", "BL"
+    };
+
+    /** Operando vacío */
+    public static final int NONE = -1;
+
+    private SymbolPool operands;
+    private byte[] opcodes;
+    private int[] firsts;
+    private int[] seconds;
+    private int size;
+
+    public AssemblyCode() {
+        opcodes = new byte[256];
+        firsts = new int[256];
+        seconds = new int[256];
+        clear();
+    }
+
+    /**
+     * Añade una instrucción al final
+     */
+    public void add(byte opcode, int first, int second) {
+        if (size == opcodes.length) {
+            int capacity = size + (size >> 1);
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+        }
+        opcodes[size] = opcode;
+        firsts[size] = first;
+        seconds[size++] = second;
+    }
+
+    /**
+     * Id de un operando de memoria o literal
+     */
+    public int operand(String text) {
+        return operands.intern(text);
+    }
+
+    public void set(int index, byte opcode, int first, int second) {
+        opcodes[index] = opcode;
+        firsts[index] = first;
+        seconds[index] = second;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte opcode(int index) {
+        return opcodes[index];
+    }
+
+    public int first(int index) {
+        return firsts[index];
+    }
+
+    public int second(int index) {
+        return seconds[index];
+    }
+
+    public boolean isJump(int index) {
+        return opcodes[index] >= JMP;
+    }
+
+    /**
+     * Línea de la etiqueta que define o a la que salta una instrucción
+     */
+    public int label(int index) {
+        return firsts[index];
+    }
+
+    /**
+     * Registro, completo o de 8 bits
+     */
+    public static boolean isRegister(int operand) {
+        return operand >= 0 && operand < REGISTER_NAMES.length;
+    }
+
+    /**
+     * Texto de un operando
+     */
+    public String operandText(int operand) {
+        return operands.name(operand);
+    }
+
+    /**
+     * Quita las instrucciones marcadas conservando el orden de las demás
+     * @return Instrucciones quitadas
+     */
+    public int compact(boolean[] removed) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed[i]) {
+                opcodes[kept] = opcodes[i];
+                firsts[kept] = firsts[i];
+                seconds[kept++] = seconds[i];
+            }
+        }
+        int count = size - kept;
+        size = kept;
+        return count;
+    }
+
+    /**
+     * Vacía el código y la tabla de operandos
+     */
+    public void clear() {
+        size = 0;
+        operands = new SymbolPool();
+        for (String register : REGISTER_NAMES) {
+            operands.intern(register);
+        }
+    }
+
+    /**
+     * Escribe como texto las instrucciones de un rango, una por línea
+     */
+    public void appendTo(StringBuilder text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte opcode = opcodes[i];
+            if (opcode == LABEL) {
+                text.append('L').append(firsts[i]).append(":\n");
+                continue;
+            }
+            text.append("    ").append(MNEMONICS[opcode]).append(' ');
+            if (opcode >= JMP) {
+                text.append('L').append(firsts[i]);
+            } else {
+                text.append(operands.name(firsts[i]));
+                if (seconds[i] != NONE) {
+                    text.append(", ").append(operands.name(seconds[i]));
+                }
+            }
+            text.append('\n');
+        }
+    }
+}
@@ -1,199 +1,425 @@
 package src.compiler;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.List;
-import java.util.Stack;
+import java.io.Writer;
+import java.nio.file.Paths;
+import java.util.Map;
 
 public class AssemblyGenerator {
 
-    private StringBuilder assemblyCode;
-    private int tempCount = 1;
-    private int labelCounter = 1;
-    private Stack<String> tempStack = new Stack<>();
-    private String finalTarget = null;
+    private static final int WRITE_CHUNK = 4096; // Instrucciones que se pasan a texto antes de escribirlas
+
+    private final StringBuilder assemblyCode;
+    private final AssemblyCode instructions = new AssemblyCode();
+    private final PeepholeOptimizer peephole;
+    private final Writer out;
+    private char[] chars;
+    private final RegisterAllocator registers = new RegisterAllocator();
+    private byte lastComparison; // Código de la última comparación
+    private boolean[] jumpTargets; // Líneas del fragmento actual que necesitan etiqueta
+    private int trailingLabel;   // Etiqueta que cerró el último fragmento, 0 si hubo código después
+    private int lineOffset;      // Líneas del programa que preceden al fragmento actual
 
     public AssemblyGenerator() {
-        this.assemblyCode = new StringBuilder();
+        this(null);
     }
 
-    public void generateAssembly(List<String> optimizedCode) {
-        initializeVariables(optimizedCode);
+    /**
+     * Generador que escribe el código en una salida a medida que lo traduce
+     * @param out Destino del código ensamblador, o null para conservarlo en memoria
+     */
+    public AssemblyGenerator(Writer out) {
+        this(out, new PeepholeOptimizer());
+    }
 
-        for (String line : optimizedCode) {
-            line = line.trim();
-            if (line.isEmpty() || line.startsWith("IntegerType")) continue;
+    /**
+     * Generador que escribe en una salida y acumula sus cuentas de mirilla con las
+     * de otro generador
+     * @param out Destino del código ensamblador, o null para conservarlo en memoria
+     * @param peephole Optimizador de mirilla compartido
+     */
+    public AssemblyGenerator(Writer out, PeepholeOptimizer peephole) {
+        this.out = out;
+        this.peephole = peephole;
+        this.assemblyCode = new StringBuilder(out != null ? 16 * 1024 : 256);
+    }
 
-            if (line.startsWith("while")) {
-                generateWhile(line);
-            } else if (line.equals("}")) {
-                assemblyCode.append("    JMP LOOP_START").append(labelCounter - 1).append("\n");
-                assemblyCode.append("END_LOOP").append(labelCounter - 1).append(":\n");
-            } else if (line.contains("=")) {
-                processAssignment(line);
+    /**
+     * Genera el código ensamblador traduciendo el triplo línea por línea
+     * @param code Triplo del programa
+     * @param declaredVariables Variables declaradas y su tipo
+     */
+    public void generateAssembly(TripletCode code, Map<String, String> declaredVariables) {
+        initializeVariables(declaredVariables);
+        startFragment(code, code.size(), 0);
+        translate(code, code.size());
+        endFragment(code.size());
+        optimizeInstructions();
+        instructions.appendTo(assemblyCode, 0, instructions.size());
+        instructions.clear();
+        assemblyCode.append("END:\n");
+    }
+
+    /**
+     * Genera el código ensamblador y lo escribe en la salida por partes, sin
+     * acumular su texto completo en memoria
+     * @param code Triplo del programa
+     * @param declaredVariables Variables declaradas y su tipo
+     */
+    public void writeAssembly(TripletCode code, Map<String, String> declaredVariables) throws IOException {
+        initializeVariables(declaredVariables);
+        generateFragment(code, code.size(), 0);
+        finish();
+    }
+
+    /**
+     * Inicializa en cero las variables enteras declaradas
+     * @param declaredVariables Variables declaradas y su tipo
+     */
+    public void initializeVariables(Map<String, String> declaredVariables) {
+        int zero = instructions.operand("0");
+        for (Map.Entry<String, String> variable : declaredVariables.entrySet()) {
+            if ("IntegerType".equals(variable.getValue())) {
+                instructions.add(AssemblyCode.MOV, AssemblyCode.AX, zero);
+                instructions.add(AssemblyCode.MOV, instructions.operand(variable.getKey()), AssemblyCode.AX);
             }
         }
+    }
 
-        assemblyCode.append("END:\n");
+    /**
+     * Traduce las primeras líneas de un triplo que forma parte de un programa más
+     * grande y las escribe en la salida. Un salto a la línea siguiente a la última
+     * deja su etiqueta al final, y el fragmento siguiente no la repite.
+     * @param code Triplo del fragmento
+     * @param rows Número de líneas a traducir
+     * @param lineOffset Líneas del programa que preceden al fragmento
+     */
+    public void generateFragment(TripletCode code, int rows, int lineOffset) throws IOException {
+        startFragment(code, rows, lineOffset);
+        translate(code, rows);
+        endFragment(rows);
+        flush();
     }
 
-    private void initializeVariables(List<String> code) {
-        for (String line : code) {
-            if (line.startsWith("IntegerType")) {
-                String[] vars = line.replace("IntegerType", "").replace(";", "").split(",");
-                for (String var : vars) {
-                    String cleanVar = var.trim();
-                    assemblyCode.append("    MOV AX, 0\n");
-                    assemblyCode.append("    MOV ").append(cleanVar).append(", AX\n");
-                }
+    private void startFragment(TripletCode code, int rows, int lineOffset) {
+        this.lineOffset = lineOffset;
+        registers.allocate(code, rows);
+
+        // Las líneas destino de un salto necesitan etiqueta
+        jumpTargets = new boolean[rows + 2];
+        for (int i = 0; i < rows; i++) {
+            if (code.isJump(i)) {
+                jumpTargets[code.jumpTarget(i)] = true;
             }
         }
     }
 
-    private void processAssignment(String line) {
-        String[] parts = line.replace(";", "").split("=");
-        if (parts.length != 2) return;
+    private void translate(TripletCode code, int rows) {
+        for (int i = 0; i < rows; i++) {
+            int line = lineOffset + i + 1;
+            if (jumpTargets[i + 1] && line != trailingLabel) {
+                instructions.add(AssemblyCode.LABEL, line, AssemblyCode.NONE);
+            }
+            trailingLabel = 0;
+            // Las variables que viven en un registro se cargan al inicio de su intervalo
+            for (int load = registers.firstLoad(i); load >= 0; load = registers.nextLoad(load)) {
+                instructions.add(AssemblyCode.MOV, register(registers.loadRegister(load)),
+                    instructions.operand(code.symbols().name(registers.loadSymbol(load))));
+            }
+            generateEntry(code, i);
+        }
+    }
 
-        String target = parts[0].trim();
-        String expr = parts[1].trim();
+    private void endFragment(int rows) {
+        int next = lineOffset + rows + 1;
+        if (jumpTargets[rows + 1] && next != trailingLabel) {
+            instructions.add(AssemblyCode.LABEL, next, AssemblyCode.NONE);
+            trailingLabel = next;
+        }
+    }
 
-        finalTarget = target;
-        tempStack.clear();
-        generateExpr(expr);
-        finalTarget = null;
+    /**
+     * Añade la marca de fin del programa y escribe lo que quede pendiente
+     */
+    public void finish() throws IOException {
+        flush();
+        assemblyCode.append("END:\n");
+        writeText();
     }
 
-    private void generateExpr(String expr) {
-        String[] addSubParts = expr.split("(?=[+-])");
-    
-        // Detección anticipada de cuál parte es multiplicación/división
-        int multIndex = -1;
-        String[] evaluatedTerms = new String[addSubParts.length];
-    
-        for (int i = 0; i < addSubParts.length; i++) {
-            String part = addSubParts[i].trim();
-            if (part.startsWith("+") || part.startsWith("-")) {
-                part = part.substring(1).trim();
+    /**
+     * Optimiza el código generado hasta ahora, lo escribe en la salida y lo
+     * descarta de memoria
+     */
+    public void flush() throws IOException {
+        if (out == null) {
+            return;
+        }
+        optimizeInstructions();
+        for (int from = 0; from < instructions.size(); from += WRITE_CHUNK) {
+            instructions.appendTo(assemblyCode, from, Math.min(from + WRITE_CHUNK, instructions.size()));
+            writeText();
+        }
+        instructions.clear();
+    }
+
+    private void optimizeInstructions() {
+        if (instructions.size() > 0) {
+            peephole.optimize(instructions);
+        }
+    }
+
+    private void writeText() throws IOException {
+        if (out == null || assemblyCode.length() == 0) {
+            return;
+        }
+        if (chars == null || chars.length < assemblyCode.length()) {
+            chars = new char[assemblyCode.capacity()];
+        }
+        assemblyCode.getChars(0, assemblyCode.length(), chars, 0);
+        out.write(chars, 0, assemblyCode.length());
+        assemblyCode.setLength(0);
+    }
+
+    private void generateEntry(TripletCode code, int index) {
+        byte opcode = code.opcode(index);
+
+        if (opcode == TripletCode.JUMP) {
+            instructions.add(AssemblyCode.JMP, lineOffset + code.jumpTarget(index), AssemblyCode.NONE);
+            return;
+        }
+        if (opcode == TripletCode.JUMP_TRUE) {
+            instructions.add(jumpIfTrue(lastComparison), lineOffset + code.jumpTarget(index), AssemblyCode.NONE);
+            return;
+        }
+        if (opcode == TripletCode.JUMP_FALSE) {
+            instructions.add(jumpIfTrue(TripletCode.negate(lastComparison)),
+                lineOffset + code.jumpTarget(index), AssemblyCode.NONE);
+            return;
+        }
+        if (opcode == TripletCode.END) {
+            // La marca de fin no genera instrucciones
+            return;
+        }
+
+        int target = instructions.operand(code.objectText(index));
+        boolean sourceInRegister = registers.sourceRegister(index) != RegisterAllocator.MEMORY;
+        int source = sourceInRegister ? register(registers.sourceRegister(index))
+            : instructions.operand(code.sourceText(index));
+        boolean inRegister = registers.objectRegister(index) != RegisterAllocator.MEMORY;
+        int result = inRegister ? register(registers.objectRegister(index)) : target;
+        if (opcode == TripletCode.COPY) {
+            if (inRegister || sourceInRegister) {
+                instructions.add(AssemblyCode.MOV, result, source);
+            } else {
+                instructions.add(AssemblyCode.MOV, AssemblyCode.AX, source);
+                instructions.add(AssemblyCode.MOV, target, AssemblyCode.AX);
             }
-    
-            String eval = evaluateMulDiv(part);
-            evaluatedTerms[i] = eval;
-    
-            if ("AX_RESULT".equals(eval)) {
-                multIndex = i;
+        } else if (opcode == TripletCode.ADD || opcode == TripletCode.SUB) {
+            byte instruction = opcode == TripletCode.ADD ? AssemblyCode.ADD : AssemblyCode.SUB;
+            if (inRegister) {
+                instructions.add(instruction, result, source);
+            } else {
+                instructions.add(AssemblyCode.MOV, AssemblyCode.AX, target);
+                instructions.add(instruction, AssemblyCode.AX, source);
+                instructions.add(AssemblyCode.MOV, target, AssemblyCode.AX);
             }
-        }
-    
-        for (int i = 0; i < addSubParts.length; i++) {
-            String part = addSubParts[i].trim();
-            char op = '+';
-    
-            if (part.charAt(0) == '+' || part.charAt(0) == '-') {
-                op = part.charAt(0);
-                part = part.substring(1).trim();
+        } else if (opcode == TripletCode.MUL || opcode == TripletCode.DIV) {
+            int constant = sourceInRegister ? -1 : byteConstant(code.sourceText(index));
+            int value = -1;
+            if (opcode == TripletCode.MUL && constant >= 0) {
+                value = multiplyByConstant(result, inRegister, constant);
+            } else if (opcode == TripletCode.DIV && constant > 0) {
+                value = divideByConstant(index, result, inRegister, constant);
             }
-    
-            String term = evaluatedTerms[i];
-    
-            if (i == multIndex) {
-                // Ya se generó el código dentro de evaluateMulDiv
-                continue;
+            if (value < 0) {
+                evaluateMulDiv(result, inRegister, source, sourceInRegister, opcode == TripletCode.MUL ? '*' : '/');
+                value = AssemblyCode.AX;
             }
-    
-            if (multIndex == -1 && i == 0) {
-                assemblyCode.append("    MOV AX, ").append(term).append("\n");
+            if (value != result) {
+                instructions.add(AssemblyCode.MOV, result, value);
+            }
+        } else {
+            // Comparación: los saltos siguientes usan las banderas que deja CMP
+            lastComparison = opcode;
+            if (inRegister) {
+                instructions.add(AssemblyCode.CMP, result, source);
             } else {
-                if (op == '+') {
-                    assemblyCode.append("    ADD AX, ").append(term).append("\n");
-                } else {
-                    assemblyCode.append("    SUB AX, ").append(term).append("\n");
-                }
+                instructions.add(AssemblyCode.MOV, AssemblyCode.AX, target);
+                instructions.add(AssemblyCode.CMP, AssemblyCode.AX, source);
             }
         }
-    
-        if (finalTarget != null && !"AX".equals(finalTarget)) {
-            assemblyCode.append("    MOV ").append(finalTarget).append(", AX\n");
+
+        // Una variable con lugar en memoria la conserva al día aunque viva en un registro
+        if (registers.isStoredBack(index)) {
+            instructions.add(AssemblyCode.MOV, target, result);
         }
     }
-    
 
-    private String evaluateMulDiv(String expr) {
-        if (!expr.contains("*") && !expr.contains("/")) return expr;
+    /**
+     * Operando de un registro asignado por {@link RegisterAllocator}
+     */
+    private static int register(byte allocated) {
+        return AssemblyCode.CX + allocated;
+    }
 
-        String[] factors = expr.split("[*/]");
-        char[] ops = expr.replaceAll("[^*/]", "").toCharArray();
+    private void evaluateMulDiv(int left, boolean leftInRegister, int right, boolean rightInRegister, char op) {
+        // MUL y DIV de 8 bits operan con AL y BL; un registro de 16 bits se copia completo
+        if (op == '*' && !leftInRegister) {
+            instructions.add(AssemblyCode.MOV, AssemblyCode.AL, left);
+        } else {
+            instructions.add(AssemblyCode.MOV, AssemblyCode.AX, left);
+        }
+        instructions.add(AssemblyCode.MOV, rightInRegister ? AssemblyCode.BX : AssemblyCode.BL, right);
+        if (op == '*') {
+            instructions.add(AssemblyCode.MUL, AssemblyCode.BL, AssemblyCode.NONE);
+        } else {
+            instructions.add(AssemblyCode.DIV, AssemblyCode.BL, AssemblyCode.NONE);
+            // El cociente queda en AL; se descarta el residuo de AH
+            instructions.add(AssemblyCode.MOV, AssemblyCode.AH, instructions.operand("0"));
+        }
+    }
 
-        String left = factors[0].trim();
-        boolean usedAX = false;
+    /**
+     * Valor de un literal entero de 0 a 255, el rango en el que MUL y DIV de 8
+     * bits toman la constante completa, o -1
+     */
+    private static int byteConstant(String text) {
+        try {
+            int value = Integer.parseInt(text);
+            return value >= 0 && value <= 255 ? value : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 
-        for (int i = 0; i < ops.length; i++) {
-            String right = factors[i + 1].trim();
-            char op = ops[i];
+    /**
+     * Multiplica por una constante con desplazamientos y sumas, sobre el registro
+     * del resultado o sobre AX
+     * @return Operando con el producto, o -1 si conviene usar MUL
+     */
+    private int multiplyByConstant(int result, boolean inRegister, int factor) {
+        if (factor == 0) {
+            return instructions.operand("0");
+        }
+        if (factor == 1) {
+            return result;
+        }
+        int exponent = StrengthReduction.powerOfTwo(factor);
+        byte[] steps = exponent < 0 ? StrengthReduction.multiplyChain(factor) : null;
+        if (exponent < 0 && steps == null) {
+            return -1;
+        }
+        int value = loadOperand(result, inRegister);
+        if (exponent > 0) {
+            shift(AssemblyCode.SHL, value, exponent);
+            return value;
+        }
+        // Las sumas usan el valor original, copiado en BX antes del primer desplazamiento
+        instructions.add(AssemblyCode.MOV, AssemblyCode.BX, value);
+        int one = instructions.operand("1");
+        for (byte step : steps) {
+            instructions.add(step, value, step == AssemblyCode.SHL ? one : AssemblyCode.BX);
+        }
+        return value;
+    }
 
-            if (op == '*') {
-                if (!"AL".equals(left)) {
-                    assemblyCode.append("    MOV AL, ").append(left).append("\n");
-                }
-                assemblyCode.append("    MOV BL, ").append(right).append("\n");
-                assemblyCode.append("    MUL BL\n");
-                usedAX = true;
-                left = "AX";
-            } else {
-                if (!"AX".equals(left)) {
-                    assemblyCode.append("    MOV AX, ").append(left).append("\n");
-                }
-                assemblyCode.append("    MOV BL, ").append(right).append("\n");
-                assemblyCode.append("    DIV BL\n");
-                usedAX = true;
-                left = "AX";
+    /**
+     * Divide sin signo entre una constante: entre una potencia de dos con
+     * desplazamientos, y entre otra multiplicando por su número mágico. El MUL de
+     * 16 bits escribe DX, que se guarda en la pila si tiene un valor vivo.
+     * @return Operando con el cociente
+     */
+    private int divideByConstant(int index, int result, boolean inRegister, int divisor) {
+        if (divisor == 1) {
+            return result;
+        }
+        int exponent = StrengthReduction.powerOfTwo(divisor);
+        if (exponent > 0) {
+            int value = loadOperand(result, inRegister);
+            shift(AssemblyCode.SHR, value, exponent);
+            return value;
+        }
+        int[] magic = StrengthReduction.divisionMagic(divisor);
+        boolean saved = result != AssemblyCode.DX
+            && registers.isLiveAfter(index, (byte) (AssemblyCode.DX - AssemblyCode.CX));
+        if (saved) {
+            instructions.add(AssemblyCode.PUSH, AssemblyCode.DX, AssemblyCode.NONE);
+        }
+        instructions.add(AssemblyCode.MOV, AssemblyCode.AX, result);
+        if (magic[2] != 0) {
+            instructions.add(AssemblyCode.MOV, AssemblyCode.BX, AssemblyCode.AX);
+        }
+        instructions.add(AssemblyCode.MOV, AssemblyCode.DX, instructions.operand(String.valueOf(magic[0])));
+        instructions.add(AssemblyCode.MUL, AssemblyCode.DX, AssemblyCode.NONE);
+        int value;
+        if (magic[2] != 0) {
+            // ((x - alta) / 2 + alta) >> (desplazamiento - 1)
+            value = AssemblyCode.BX;
+            instructions.add(AssemblyCode.SUB, AssemblyCode.BX, AssemblyCode.DX);
+            shift(AssemblyCode.SHR, AssemblyCode.BX, 1);
+            instructions.add(AssemblyCode.ADD, AssemblyCode.BX, AssemblyCode.DX);
+            shift(AssemblyCode.SHR, AssemblyCode.BX, magic[1] - 1);
+        } else {
+            value = saved ? AssemblyCode.AX : AssemblyCode.DX;
+            if (saved) {
+                instructions.add(AssemblyCode.MOV, AssemblyCode.AX, AssemblyCode.DX);
             }
+            shift(AssemblyCode.SHR, value, magic[1]);
         }
+        if (saved) {
+            instructions.add(AssemblyCode.POP, AssemblyCode.DX, AssemblyCode.NONE);
+        }
+        return value;
+    }
 
-        return usedAX ? "AX_RESULT" : left;
-    }
-
-    private void generateWhile(String line) {
-        String loopLabel = "LOOP_START" + labelCounter;
-        String endLabel = "END_LOOP" + labelCounter;
-        labelCounter++;
-    
-        assemblyCode.append(loopLabel).append(":\n");
-    
-        line = line.substring(line.indexOf('(') + 1, line.lastIndexOf(')'));
-        String[] conditions = line.split("&&");
-    
-        for (String cond : conditions) {
-            cond = cond.trim();
-            String[] parts;
-            String jump = "";
-    
-            if (cond.contains("<")) {
-                parts = cond.split("<");
-                jump = "LT"; // CORRECTO: salir si NO se cumple <
-            } else if (cond.contains(">")) {
-                parts = cond.split(">");
-                jump = "GT"; // CORRECTO: salir si NO se cumple >
-            } else {
-                continue;
-            }
-    
-            String left = parts[0].trim();
-            String right = parts[1].trim();
-    
-            assemblyCode.append("    MOV AX, ").append(left).append("\n");
-            assemblyCode.append("    CMP AX, ").append(right).append("\n");
-            assemblyCode.append("    ").append(jump).append(" ").append(endLabel).append("\n");
+    /**
+     * Registro con el valor de un operando: el suyo, o AX cargado desde memoria
+     */
+    private int loadOperand(int operand, boolean inRegister) {
+        if (inRegister) {
+            return operand;
         }
+        instructions.add(AssemblyCode.MOV, AssemblyCode.AX, operand);
+        return AssemblyCode.AX;
+    }
+
+    private void shift(byte instruction, int register, int count) {
+        int one = instructions.operand("1");
+        for (int k = 0; k < count; k++) {
+            instructions.add(instruction, register, one);
+        }
+    }
+
+    private static byte jumpIfTrue(byte comparison) {
+        switch (comparison) {
+            case TripletCode.LESS: return AssemblyCode.JL;
+            case TripletCode.GREATER: return AssemblyCode.JG;
+            case TripletCode.LESS_EQUAL: return AssemblyCode.JLE;
+            case TripletCode.GREATER_EQUAL: return AssemblyCode.JGE;
+            case TripletCode.EQUAL: return AssemblyCode.JE;
+            default: return AssemblyCode.JNE;
+        }
+    }
+
+    /**
+     * Reglas de mirilla aplicadas al código generado, con sus cuentas
+     */
+    public PeepholeOptimizer getPeepholeOptimizer() {
+        return peephole;
     }
-    
 
-    private String getTemp() {
-        return "TMP" + (tempCount++);
+    /**
+     * Código ensamblador generado; con una salida, sólo lo que aún no se ha escrito
+     */
+    public String getAssemblyCode() {
+        return assemblyCode.toString();
     }
 
     public void saveToFile(String filePath) throws IOException {
-        try (FileWriter writer = new FileWriter(filePath)) {
-            writer.write(assemblyCode.toString());
+        try (OutputFile file = new OutputFile(Paths.get(filePath), assemblyCode.length())) {
+            file.writer().append(assemblyCode);
+            file.commit();
         }
     }
 }
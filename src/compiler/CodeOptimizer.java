@@ -1,144 +1,496 @@
 package src.compiler;
 
-import java.util.*;
-import java.util.regex.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import src.tokens.SymbolPool;
 
 public class CodeOptimizer {
+    private int foldedExpressions;
+    private int reusedExpressions;
+    private final LoopInvariantMotion loopInvariants = new LoopInvariantMotion();
+    private final StrengthReduction strengthReduction = new StrengthReduction();
+    private final DeadCodeEliminator deadCode = new DeadCodeEliminator();
+    private final JumpOptimizer jumps = new JumpOptimizer();
+
+    /**
+     * Optimiza el triplo: primero pliega y propaga constantes, después elimina
+     * subexpresiones comunes, saca de los ciclos las expresiones invariantes,
+     * cambia por sumas las multiplicaciones de variables de inducción, elimina el
+     * código muerto que dejan los pasos anteriores y por último simplifica los
+     * saltos. Los saltos se limpian al final porque los pasos de ciclos reconocen
+     * cada ciclo por su JMP de regreso.
+     * @param code Triplo generado a partir del árbol sintáctico
+     * @return Triplo optimizado; el original no se modifica
+     */
+    public TripletCode optimize(TripletCode code) {
+        TripletCode folded = foldConstants(code);
+        TripletCode reused = eliminateCommonSubexpressions(folded);
+        TripletCode hoisted = loopInvariants.hoist(reused);
+        TripletCode reduced = strengthReduction.reduce(hoisted);
+        return jumps.optimize(LoopNest.removeUnused(deadCode.eliminate(reduced)));
+    }
+
+    /**
+     * Variables declaradas que siguen en uso y cuyo valor inicial se puede leer
+     * @see DeadCodeEliminator#liveDeclarations(TripletCode, Map)
+     */
+    public Map<String, String> liveDeclarations(TripletCode code, Map<String, String> declaredVariables) {
+        return deadCode.liveDeclarations(code, declaredVariables);
+    }
 
-    public String optimize(String originalCode) {
-        String[] lines = originalCode.split("\\n");
-        Map<String, String> exprToVar = new LinkedHashMap<>();
-        List<String> optimizedLines = new ArrayList<>();
-
-        Pattern assignmentPattern = Pattern.compile("^\\s*(JSJ[a-z][0-9]+)\\s*=\\s*(.+);$");
-
-        // Paso 1: almacenar expresiones constantes
-        for (String line : lines) {
-            Matcher matcher = assignmentPattern.matcher(line.trim());
-            if (matcher.matches()) {
-                String var = matcher.group(1).trim();
-                String expr = matcher.group(2).trim();
-                if (isPureConstant(expr)) {
-                    String normalized = normalize(expr);
-                    exprToVar.putIfAbsent(normalized, var);
+    /**
+     * Plegado y propagación de constantes. Las operaciones con operandos
+     * constantes se calculan en tiempo de compilación ({@code 2*3+4} queda como
+     * {@code 10}) y el valor constante de una variable reemplaza sus usos hasta
+     * que se reasigna. Al inicio de un ciclo se olvidan las variables asignadas
+     * dentro de él, porque el salto de regreso puede traer otro valor; en los
+     * puntos donde se unen caminos se olvidan las asignadas desde el primer salto.
+     * Cuando una operación se pliega, la carga previa del acumulador queda sin
+     * uso y se elimina.
+     */
+    private TripletCode foldConstants(TripletCode code) {
+        int size = code.size();
+        int[] loopEnd = new int[size];
+        int[] joinStart = new int[size];
+        boolean[] leaders = new boolean[size + 1];
+        Arrays.fill(loopEnd, -1);
+        Arrays.fill(joinStart, -1);
+        leaders[0] = true;
+        for (int i = 0; i < size; i++) {
+            if (code.isJump(i)) {
+                int target = code.jumpTarget(i) - 1;
+                if (target <= i) {
+                    loopEnd[target] = Math.max(loopEnd[target], i);
+                } else if (joinStart[target] < 0) {
+                    joinStart[target] = i;
                 }
+                leaders[target] = true;
+                leaders[i + 1] = true;
             }
         }
 
-        // Paso 2: optimizar reemplazando subexpresiones respetando jerarquía
-        for (String line : lines) {
-            Matcher matcher = assignmentPattern.matcher(line.trim());
+        SymbolPool symbols = code.symbols();
+        TripletCode folded = new TripletCode(symbols, size);
+        for (int i = 0; i < size; i++) {
+            folded.add(code, i);
+        }
+        boolean[] removed = new boolean[size];
+
+        // Por símbolo: literal constante que guarda, y su última asignación sin leer en el bloque
+        int symbolCount = symbols.size();
+        int[] constants = new int[symbolCount];
+        int[] unreadLine = new int[symbolCount];
+        int[] unreadBlock = new int[symbolCount];
+        Arrays.fill(constants, TripletCode.NONE);
+        Arrays.fill(unreadBlock, -1);
+        int block = -1;
+        foldedExpressions = 0;
 
-            if (!matcher.matches()) {
-                optimizedLines.add(line);
+        for (int i = 0; i < size; i++) {
+            if (loopEnd[i] >= 0) {
+                forgetDefinitions(code, i, loopEnd[i] + 1, constants);
+            }
+            if (joinStart[i] >= 0) {
+                forgetDefinitions(code, joinStart[i], i, constants);
+            }
+            if (leaders[i]) {
+                block++;
+            }
+
+            byte opcode = code.opcode(i);
+            if (TripletCode.isJump(opcode) || opcode == TripletCode.END) {
                 continue;
             }
 
-            String leftVar = matcher.group(1).trim();
-            String rightExpr = matcher.group(2).trim();
-            String normalizedRight = normalize(rightExpr);
+            int target = code.object(i);
+            int source = code.source(i);
+            int sourceValue = code.isLiteral(source) ? source : constants[source];
+            if (sourceValue == TripletCode.NONE) {
+                unreadBlock[source] = -1;
+            }
 
-            if (exprToVar.getOrDefault(normalizedRight, "").equals(leftVar)) {
-                optimizedLines.add(line);
-                continue;
+            if (opcode == TripletCode.COPY) {
+                if (sourceValue != TripletCode.NONE && sourceValue != source) {
+                    folded.set(i, TripletCode.COPY, target, sourceValue);
+                }
+                define(target, sourceValue, i, block, constants, unreadLine, unreadBlock);
+            } else if (TripletCode.isArithmetic(opcode)) {
+                int result = fold(symbols, constants[target], sourceValue, opcode);
+                if (result != TripletCode.NONE) {
+                    // El acumulador ya no se lee, así que su carga anterior sobra
+                    if (unreadBlock[target] == block) {
+                        removed[unreadLine[target]] = true;
+                    }
+                    folded.set(i, TripletCode.COPY, target, result);
+                    foldedExpressions++;
+                } else {
+                    if (sourceValue != TripletCode.NONE && sourceValue != source) {
+                        folded.set(i, opcode, target, sourceValue);
+                    }
+                    unreadBlock[target] = -1;
+                }
+                define(target, result, i, block, constants, unreadLine, unreadBlock);
+            } else {
+                // Comparación: lee ambos operandos
+                if (sourceValue != TripletCode.NONE && sourceValue != source) {
+                    folded.set(i, opcode, target, sourceValue);
+                }
+                unreadBlock[target] = -1;
+            }
+        }
+        return folded.compact(removed);
+    }
+
+    private static void define(int name, int constant, int line, int block, int[] constants,
+            int[] unreadLine, int[] unreadBlock) {
+        constants[name] = constant;
+        unreadLine[name] = line;
+        unreadBlock[name] = block;
+    }
+
+    /**
+     * Olvida el valor constante de los nombres asignados entre las líneas indicadas
+     * (índices desde 0, fin exclusivo)
+     */
+    private static void forgetDefinitions(TripletCode code, int from, int to, int[] constants) {
+        for (int i = from; i < to; i++) {
+            if (code.isAssignment(i)) {
+                constants[code.object(i)] = TripletCode.NONE;
             }
+        }
+    }
 
-            boolean replaced = false;
-            for (Map.Entry<String, String> entry : exprToVar.entrySet()) {
-                String exprNorm = entry.getKey();
-                String exprVar = entry.getValue();
+    /**
+     * Calcula una operación entre dos literales enteros
+     * @return El símbolo del resultado, o NONE si no se puede calcular en compilación
+     */
+    private static int fold(SymbolPool symbols, int left, int right, byte opcode) {
+        if (left == TripletCode.NONE || right == TripletCode.NONE) {
+            return TripletCode.NONE;
+        }
+        int a;
+        int b;
+        try {
+            a = Integer.parseInt(symbols.name(left));
+            b = Integer.parseInt(symbols.name(right));
+        } catch (NumberFormatException e) {
+            // Flotantes y cadenas no se pliegan
+            return TripletCode.NONE;
+        }
+        switch (opcode) {
+            case TripletCode.ADD: return symbols.intern(String.valueOf(a + b));
+            case TripletCode.SUB: return symbols.intern(String.valueOf(a - b));
+            case TripletCode.MUL: return symbols.intern(String.valueOf(a * b));
+            default: return b == 0 ? TripletCode.NONE : symbols.intern(String.valueOf(a / b));
+        }
+    }
 
-                if (leftVar.equals(exprVar)) continue;
+    /**
+     * Numeración de valores local: dentro de cada bloque
+     * básico, una operación cuyo valor ya está guardado en otra variable se
+     * reemplaza por una copia de esa variable. Cada operación se busca en una
+     * tabla hash por (operador, número de valor, número de valor), así que el
+     * costo es lineal en el tamaño del triplo.
+     *
+     * En el triplo los resultados parciales se acumulan en una temporal que la
+     * siguiente operación sobrescribe. Una primera pasada encuentra los valores
+     * que se vuelven a calcular después de perderse; la segunda los guarda en
+     * una temporal nueva al calcularlos la primera vez y reemplaza las repeticiones.
+     */
+    private TripletCode eliminateCommonSubexpressions(TripletCode code) {
+        boolean[] leaders = findLeaders(code);
+        boolean[] saved = new boolean[code.size()];
+        numberValues(code, leaders, saved, null);
 
-                if (containsExactNormalizedSubexpr(normalizedRight, exprNorm) && isSafeToReplace(rightExpr, exprNorm)) {
-                    String newExpr = replaceExactSubExpr(rightExpr, exprNorm, exprVar);
-                    optimizedLines.add(leftVar + " = " + newExpr + ";");
-                    replaced = true;
-                    break;
+        TripletCode optimized = new TripletCode(code.symbols(), code.size() + code.size() / 8);
+        int[] newLines = numberValues(code, leaders, saved, optimized);
+        optimized.remapJumps(newLines);
+        return optimized;
+    }
+
+    /**
+     * Recorre el triplo numerando valores.
+     * @param saved Líneas cuyo resultado se debe guardar; la primera pasada las llena
+     * @param output Triplo optimizado, o null en la primera pasada
+     * @return Nueva posición (desde 1) de cada línea original en la segunda pasada
+     */
+    private int[] numberValues(TripletCode code, boolean[] leaders, boolean[] saved, TripletCode output) {
+        boolean rewrite = output != null;
+        int[] newLines = rewrite ? new int[code.size()] : null;
+        int nextTemp = maxTemp(code) + 1;
+        ValueTable values = new ValueTable(code);
+        if (rewrite) {
+            reusedExpressions = 0;
+        }
+
+        for (int i = 0; i < code.size(); i++) {
+            if (leaders[i]) {
+                // Numeración local: los valores no cruzan el inicio de un bloque
+                values.clear();
+            }
+
+            byte opcode = code.opcode(i);
+            int object = code.object(i);
+            int source = code.source(i);
+            if (opcode == TripletCode.COPY) {
+                values.assign(object, values.valueOf(source));
+            } else if (TripletCode.isArithmetic(opcode)) {
+                int value = values.expression(opcode, values.valueOf(object), values.valueOf(source));
+                int holder = values.holder(value);
+                if (holder != TripletCode.NONE && holder != object) {
+                    if (rewrite) {
+                        opcode = TripletCode.COPY;
+                        source = holder;
+                        reusedExpressions++;
+                    }
+                } else if (holder == TripletCode.NONE && values.firstComputation(value) >= 0) {
+                    // El valor ya se calculó en este bloque pero se perdió
+                    saved[values.firstComputation(value)] = true;
+                } else {
+                    values.computedAt(value, i);
                 }
+                values.assign(object, value);
+            } else if (TripletCode.isComparison(opcode)) {
+                // Comparación: sólo lee sus operandos
+                values.valueOf(object);
+                values.valueOf(source);
+            }
+
+            if (rewrite) {
+                newLines[i] = output.add(opcode, object, source);
+                if (saved[i]) {
+                    int temp = code.symbols().intern("T" + nextTemp++);
+                    output.add(TripletCode.COPY, temp, object);
+                    values.keep(temp, values.valueOf(object));
+                }
+            }
+        }
+        return newLines;
+    }
+
+    /**
+     * Número más alto de las temporales T1, T2... usadas en el triplo
+     */
+    private static int maxTemp(TripletCode code) {
+        int max = 0;
+        boolean[] seen = new boolean[code.symbols().size()];
+        for (int i = 0; i < code.size(); i++) {
+            if (code.isJump(i) || code.opcode(i) == TripletCode.END) {
+                continue;
+            }
+            int object = code.object(i);
+            if (!seen[object]) {
+                seen[object] = true;
+                max = Math.max(max, tempNumber(code.symbols().name(object)));
             }
+        }
+        return max;
+    }
 
-            if (!replaced) optimizedLines.add(line);
+    private static int tempNumber(String name) {
+        if (name.length() < 2 || name.charAt(0) != 'T' || !Character.isDigit(name.charAt(1))) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(name.substring(1));
+        } catch (NumberFormatException e) {
+            return 0;
         }
+    }
 
-        return String.join("\n", optimizedLines);
+    /**
+     * Operaciones calculadas en tiempo de compilación en la última optimización
+     */
+    public int getFoldedExpressions() {
+        return foldedExpressions;
     }
 
-    private boolean isPureConstant(String expr) {
-        return expr.matches("[0-9\\s+\\-*/()]+");
+    /**
+     * Operaciones reemplazadas por un valor ya calculado en la última optimización
+     */
+    public int getReusedExpressions() {
+        return reusedExpressions;
     }
 
-    private String normalize(String expr) {
-        return expr.replaceAll("\\s+", "");
+    /**
+     * Expresiones sacadas de un ciclo en la última optimización
+     */
+    public int getHoistedExpressions() {
+        return loopInvariants.getHoistedExpressions();
     }
 
-    private boolean containsExactNormalizedSubexpr(String normalizedExpr, String subexpr) {
-        int idx = normalizedExpr.indexOf(subexpr);
-        if (idx == -1) return false;
+    /**
+     * Multiplicaciones cambiadas por una variable de inducción en la última optimización
+     */
+    public int getReducedMultiplications() {
+        return strengthReduction.getReducedMultiplications();
+    }
 
-        char before = idx > 0 ? normalizedExpr.charAt(idx - 1) : ' ';
-        char after = idx + subexpr.length() < normalizedExpr.length() ? normalizedExpr.charAt(idx + subexpr.length()) : ' ';
+    /**
+     * Líneas muertas eliminadas en la última optimización
+     */
+    public int getRemovedEntries() {
+        return deadCode.getRemovedEntries();
+    }
 
-        return !(Character.isLetterOrDigit(before) || Character.isLetterOrDigit(after));
+    /**
+     * Saltos encadenados directo a su destino final en la última optimización
+     */
+    public int getThreadedJumps() {
+        return jumps.getThreadedJumps();
     }
 
-    private boolean isSafeToReplace(String expr, String rawExpr) {
-        String noSpaces = expr.replaceAll("\\s+", "");
-        String normalizedRaw = rawExpr.replaceAll("\\s+", "");
-        int idx = noSpaces.indexOf(normalizedRaw);
-        if (idx == -1) return false;
+    /**
+     * Saltos sobrantes y líneas inalcanzables eliminadas en la última optimización
+     */
+    public int getRemovedJumps() {
+        return jumps.getRemovedEntries();
+    }
 
-        if (noSpaces.equals(normalizedRaw)) return true;
+    /**
+     * Primeras líneas de cada bloque básico (índices desde 0): el inicio del
+     * triplo, los destinos de salto y las líneas que siguen a un salto
+     */
+    private static boolean[] findLeaders(TripletCode code) {
+        boolean[] leaders = new boolean[code.size() + 1];
+        leaders[0] = true;
+        for (int i = 0; i < code.size(); i++) {
+            if (code.isJump(i)) {
+                leaders[code.jumpTarget(i) - 1] = true;
+                leaders[i + 1] = true;
+            }
+        }
+        return leaders;
+    }
 
-        // Verificar que no esté afectado por * o / justo afuera de la subexpresión
-        int beforeIdx = idx - 1;
-        int afterIdx = idx + normalizedRaw.length();
+    /**
+     * Números de valor de un bloque básico. Los números nunca se repiten entre
+     * bloques, así que al cambiar de bloque basta con olvidar los nombres.
+     */
+    private static class ValueTable {
+        private final TripletCode code;
+        private final Map<Long, Integer> valueOfExpression = new HashMap<>();
+        private int[] valueOfName;
+        private int[] nameBlock;        // Bloque en el que se asignó valueOfName
+        private int[] holderOfValue = new int[64];
+        private int[] firstComputation = new int[64];
+        private int block;
+        private int nextValue;
 
-        if (beforeIdx >= 0) {
-            char before = noSpaces.charAt(beforeIdx);
-            if (before == '*' || before == '/') return false;
+        ValueTable(TripletCode code) {
+            this.code = code;
+            int symbols = Math.max(code.symbols().size(), 16);
+            valueOfName = new int[symbols];
+            nameBlock = new int[symbols];
         }
-        if (afterIdx < noSpaces.length()) {
-            char after = noSpaces.charAt(afterIdx);
-            if (after == '*' || after == '/') return false;
+
+        void clear() {
+            block++;
         }
 
-        return true;
-    }
+        /**
+         * Número de valor actual de una variable, temporal o literal; un nombre
+         * sin valor conocido recibe uno nuevo
+         */
+        int valueOf(int name) {
+            ensureName(name);
+            if (nameBlock[name] == block) {
+                return valueOfName[name];
+            }
+            int value = newValue();
+            setValue(name, value);
+            holderOfValue[value] = name;
+            return value;
+        }
 
-    private List<String> tokenize(String expr) {
-        List<String> tokens = new ArrayList<>();
-        Matcher matcher = Pattern.compile("JSJ[a-z][0-9]+|\\d+|[+\\-*/()]|\\s+").matcher(expr);
-        while (matcher.find()) {
-            tokens.add(matcher.group());
+        /**
+         * Número de valor de una operación, el mismo para operaciones equivalentes
+         */
+        int expression(byte opcode, int left, int right) {
+            if ((opcode == TripletCode.ADD || opcode == TripletCode.MUL) && left > right) {
+                // Operadores conmutativos: el orden de los operandos no importa
+                int swap = left;
+                left = right;
+                right = swap;
+            }
+            long key = ((long) (opcode - TripletCode.ADD) << 62) | ((long) left << 31) | right;
+            Integer value = valueOfExpression.get(key);
+            if (value == null) {
+                value = newValue();
+                valueOfExpression.put(key, value);
+            }
+            return value;
         }
-        return tokens;
-    }
 
-    private String replaceExactSubExpr(String expr, String targetNormalized, String replacementVar) {
-        List<String> tokens = tokenize(expr);
-        List<String> normalized = new ArrayList<>();
-        for (String t : tokens) {
-            if (!t.matches("\\s+")) normalized.add(t);
+        void assign(int name, int value) {
+            setValue(name, value);
+            int holder = holder(value);
+            // Se prefieren variables del programa sobre temporales, que se reutilizan en cada sentencia
+            if (holder == TripletCode.NONE || (code.isTemp(holder) && !code.isTemp(name))) {
+                holderOfValue[value] = name;
+            }
         }
 
-        StringBuilder result = new StringBuilder();
-        for (int i = 0; i < normalized.size(); ) {
-            boolean matched = false;
-            for (int len = normalized.size() - i; len > 0; len--) {
-                String segment = String.join("", normalized.subList(i, i + len));
-                if (segment.equals(targetNormalized)) {
-                    result.append(replacementVar);
-                    i += len;
-                    matched = true;
-                    break;
-                }
+        /**
+         * Asigna el valor y lo deja guardado en ese nombre aunque ya lo tenga otro
+         */
+        void keep(int name, int value) {
+            setValue(name, value);
+            holderOfValue[value] = name;
+        }
+
+        /**
+         * Nombre que todavía guarda el valor, o NONE si ya fue reasignado
+         */
+        int holder(int value) {
+            int holder = holderOfValue[value];
+            if (holder == TripletCode.NONE || holder >= nameBlock.length || nameBlock[holder] != block) {
+                return TripletCode.NONE;
             }
-            if (!matched) {
-                result.append(normalized.get(i));
-                i++;
+            return valueOfName[holder] == value ? holder : TripletCode.NONE;
+        }
+
+        /**
+         * Línea donde se calculó el valor por primera vez, o -1
+         */
+        int firstComputation(int value) {
+            return firstComputation[value];
+        }
+
+        void computedAt(int value, int line) {
+            if (firstComputation[value] < 0) {
+                firstComputation[value] = line;
+            }
+        }
+
+        private int newValue() {
+            if (nextValue == holderOfValue.length) {
+                int length = nextValue + (nextValue >> 1);
+                holderOfValue = Arrays.copyOf(holderOfValue, length);
+                firstComputation = Arrays.copyOf(firstComputation, length);
+            }
+            holderOfValue[nextValue] = TripletCode.NONE;
+            firstComputation[nextValue] = -1;
+            return nextValue++;
+        }
+
+        private void setValue(int name, int value) {
+            ensureName(name);
+            valueOfName[name] = value;
+            nameBlock[name] = block;
+        }
+
+        /**
+         * Las temporales nuevas agregan símbolos a la tabla durante el recorrido
+         */
+        private void ensureName(int name) {
+            if (name >= valueOfName.length) {
+                int length = Math.max(name + 1, valueOfName.length + (valueOfName.length >> 1));
+                valueOfName = Arrays.copyOf(valueOfName, length);
+                nameBlock = Arrays.copyOf(nameBlock, length);
             }
         }
-        return result.toString();
     }
 }
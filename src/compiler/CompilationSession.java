@@ -0,0 +1,219 @@
+package src.compiler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import src.analysis.AnalysisResult;
+import src.analysis.Diagnostics;
+
+/**
+ * Holds all the state of one compilation: the source, its analysis, the generated
+ * triplets and the paths of its output files. Sessions share nothing, so several
+ * of them can run at the same time on different threads.
+ */
+public class CompilationSession {
+    public static final String TRIPLET_SUFFIX = ".triplet.txt";
+    public static final String OPTIMIZATION_SUFFIX = ".optimization.txt";
+    public static final String ASSEMBLY_SUFFIX = ".assembly.txt";
+    public static final String BINARY_TRIPLET_SUFFIX = ".triplet.bin";
+
+    private final Path source;
+    private final String tripletFilePath;
+    private final String optimizationFilePath;
+    private final String assemblyFilePath;
+    private final String binaryTripletFilePath;
+
+    private CharSequence code;
+    private AnalysisResult analysis;
+    private Diagnostics diagnostics;
+    private boolean streaming;
+    private TripletGenerator generator;
+    private Exception failure;
+
+    /**
+     * @param source Source file, or null when the code is given directly
+     * @param tripletFilePath Triplet table file
+     * @param optimizationFilePath File with the original and the optimized code
+     * @param assemblyFilePath Assembly code file
+     */
+    public CompilationSession(Path source, String tripletFilePath, String optimizationFilePath,
+            String assemblyFilePath) {
+        this(source, tripletFilePath, optimizationFilePath, assemblyFilePath, null);
+    }
+
+    /**
+     * @param source Source file, or null when the code is given directly
+     * @param tripletFilePath Triplet table file
+     * @param optimizationFilePath File with the original and the optimized code
+     * @param assemblyFilePath Assembly code file
+     * @param binaryTripletFilePath {@link TripletFile} of the optimized triplet, or null
+     */
+    public CompilationSession(Path source, String tripletFilePath, String optimizationFilePath,
+            String assemblyFilePath, String binaryTripletFilePath) {
+        this.source = source;
+        this.tripletFilePath = tripletFilePath;
+        this.optimizationFilePath = optimizationFilePath;
+        this.assemblyFilePath = assemblyFilePath;
+        this.binaryTripletFilePath = binaryTripletFilePath;
+    }
+
+    /**
+     * Session for a source file whose outputs are named after it, inside the output
+     * directory or next to the source when the directory is null
+     */
+    public static CompilationSession forFile(Path source, Path outDir) {
+        String name = source.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        Path dir = outDir != null ? outDir : source.toAbsolutePath().getParent();
+        return new CompilationSession(source,
+            dir.resolve(base + TRIPLET_SUFFIX).toString(),
+            dir.resolve(base + OPTIMIZATION_SUFFIX).toString(),
+            dir.resolve(base + ASSEMBLY_SUFFIX).toString(),
+            dir.resolve(base + BINARY_TRIPLET_SUFFIX).toString());
+    }
+
+    /**
+     * Reads, compiles and writes the outputs of the source file. Outputs are only
+     * written when the file has no errors; I/O failures and unexpected runtime
+     * exceptions are kept in the session so other files are not affected.
+     */
+    public void run() {
+        if (streaming) {
+            runStreaming();
+            return;
+        }
+        try {
+            compile(readSource());
+            if (!analysis.hasErrors()) {
+                writeOutputs();
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Compiles the source file with a {@link StreamingCompiler}, which keeps neither
+     * the code nor its analysis
+     */
+    private void runStreaming() {
+        try (Reader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(source), StandardCharsets.UTF_8))) {
+            diagnostics = new StreamingCompiler().compile(reader, tripletFilePath, optimizationFilePath,
+                assemblyFilePath);
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Makes {@link #run()} compile the file statement by statement with bounded
+     * memory. The code, analysis and generator of the session stay null, and no
+     * binary triplet is written.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Reads the source file of the session
+     */
+    public String readSource() throws IOException {
+        String text = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+        code = text;
+        return text;
+    }
+
+    /**
+     * Analyzes the code and generates its triplets, even when it has errors;
+     * {@link #run()} only writes the outputs of a file without errors
+     * @param code Source code to compile
+     * @return The analysis, with the errors found
+     */
+    public AnalysisResult compile(String code) {
+        return compile(AnalysisResult.analyze(code), code);
+    }
+
+    /**
+     * Generates the triplets of a source already analyzed elsewhere, such as by
+     * an {@link src.analysis.IncrementalAnalyzer}
+     * @param analysis Analysis of the code
+     * @param code Analyzed source code, for the optimization report
+     * @return The same analysis
+     */
+    public AnalysisResult compile(AnalysisResult analysis, CharSequence code) {
+        this.code = code;
+        this.analysis = analysis;
+        this.diagnostics = analysis.getDiagnostics();
+        generator = new TripletGenerator();
+        generator.generateTriplo(analysis.getProgram(), code);
+        return analysis;
+    }
+
+    /**
+     * Writes the triplet, optimization and assembly files of the last compilation,
+     * and the binary triplet when the session has a path for it
+     */
+    public void writeOutputs() throws IOException {
+        if (generator == null) {
+            throw new IllegalStateException("Nothing compiled in this session");
+        }
+        generator.saveToFile(tripletFilePath, optimizationFilePath, assemblyFilePath);
+        if (binaryTripletFilePath != null) {
+            TripletFile.write(generator.getTriplet(), Paths.get(binaryTripletFilePath));
+        }
+    }
+
+    /**
+     * I/O error or runtime exception that stopped {@link #run()}, or null
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public Path getSource() {
+        return source;
+    }
+
+    public CharSequence getCode() {
+        return code;
+    }
+
+    /**
+     * Errors of the last compilation, also available after a streaming one
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    public AnalysisResult getAnalysis() {
+        return analysis;
+    }
+
+    public TripletGenerator getGenerator() {
+        return generator;
+    }
+
+    public String getTripletFilePath() {
+        return tripletFilePath;
+    }
+
+    public String getOptimizationFilePath() {
+        return optimizationFilePath;
+    }
+
+    public String getAssemblyFilePath() {
+        return assemblyFilePath;
+    }
+
+    public String getBinaryTripletFilePath() {
+        return binaryTripletFilePath;
+    }
+}
@@ -2,9 +2,14 @@ package src.compiler;
 
 public class Compiler {
     public static void main(String[] args) {
+        // Con argumentos se compila en modo batch sin abrir la ventana
+        if (args.length > 0) {
+            CompilerCli.main(args);
+            return;
+        }
         javax.swing.SwingUtilities.invokeLater(() -> {
             MainWindow ventana = new MainWindow();
             ventana.setVisible(true);
         });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package src.compiler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import src.analysis.Diagnostics.Diagnostic;
+
+/**
+ * Headless batch compiler. Compiles source files, or every file of a directory,
+ * to triplet (text and binary), optimization and assembly outputs without loading
+ * Swing or AWT.
+ *
+ * <pre>
+ * java src.compiler.CompilerCli [--jobs N] [--out DIR] [--stream] &lt;file|directory&gt;...
+ * </pre>
+ *
+ * Files are compiled concurrently, {@code --jobs} at a time (all processors by default).
+ * With {@code --stream} each file is compiled statement by statement with a
+ * {@link StreamingCompiler}, for inputs too large to hold in memory.
+ * Exits with status 1 when any file has errors and 2 on bad usage, I/O or internal
+ * failures, or when two files would write the same outputs.
+ */
+public class CompilerCli {
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_ERRORS = 1;
+    private static final int EXIT_USAGE = 2;
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs the compiler with command line arguments
+     * @return The process exit status
+     */
+    public static int run(String[] args) {
+        int jobs = Runtime.getRuntime().availableProcessors();
+        Path outDir = null;
+        boolean streaming = false;
+        List<Path> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--jobs".equals(arg) || "-j".equals(arg)) {
+                if (i + 1 >= args.length) return usage("Missing value for " + arg);
+                try {
+                    jobs = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    return usage("Invalid number of jobs: " + args[i]);
+                }
+                if (jobs < 1) return usage("Invalid number of jobs: " + jobs);
+            } else if ("--out".equals(arg) || "-o".equals(arg)) {
+                if (i + 1 >= args.length) return usage("Missing value for " + arg);
+                outDir = Paths.get(args[++i]);
+            } else if ("--stream".equals(arg)) {
+                streaming = true;
+            } else if ("--help".equals(arg) || "-h".equals(arg)) {
+                usage(null);
+                return EXIT_OK;
+            } else if (arg.startsWith("-")) {
+                return usage("Unknown option: " + arg);
+            } else {
+                inputs.add(Paths.get(arg));
+            }
+        }
+        if (inputs.isEmpty()) return usage("No input files");
+
+        List<Path> sources;
+        try {
+            sources = collectSources(inputs);
+            if (outDir != null) {
+                Files.createDirectories(outDir);
+            }
+        } catch (IOException e) {
+            System.err.println("error: " + e.getMessage());
+            return EXIT_USAGE;
+        }
+
+        return compileAll(sources, outDir, jobs, streaming);
+    }
+
+    private static int compileAll(List<Path> sources, Path outDir, int jobs, boolean streaming) {
+        List<CompilationSession> sessions = new ArrayList<>(sources.size());
+        Map<Path, Path> outputOwners = new HashMap<>();
+        for (Path source : sources) {
+            CompilationSession session = CompilationSession.forFile(source, outDir);
+            // Dos sesiones con las mismas salidas se sobrescribirían al correr a la vez
+            Path output = Paths.get(session.getTripletFilePath()).toAbsolutePath().normalize();
+            Path owner = outputOwners.putIfAbsent(output, source);
+            if (owner != null) {
+                System.err.println("error: " + owner + " and " + source + " both write " + output);
+                return EXIT_USAGE;
+            }
+            session.setStreaming(streaming);
+            sessions.add(session);
+        }
+        new ParallelCompiler(jobs).compileAll(sessions);
+
+        // Los resultados se imprimen en el orden de entrada sin importar qué hilo terminó primero
+        int status = EXIT_OK;
+        for (CompilationSession session : sessions) {
+            Exception failure = session.getFailure();
+            if (failure != null) {
+                String message = failure instanceof IOException ? failure.getMessage() : "internal error: " + failure;
+                System.err.println(session.getSource() + ": " + message);
+                status = EXIT_USAGE;
+                continue;
+            }
+            if (!session.getDiagnostics().isEmpty()) {
+                for (Diagnostic diagnostic : session.getDiagnostics().getEntries()) {
+                    System.err.println(session.getSource() + ":" + diagnostic.getLine() + ": "
+                        + diagnostic.getToken() + ": " + diagnostic.getDescription()
+                        + " (" + diagnostic.getLexeme() + ")");
+                }
+                if (status == EXIT_OK) {
+                    status = EXIT_ERRORS;
+                }
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Expands directories into their regular files, skipping outputs of previous runs
+     * and temporary files left by interrupted ones.
+     * A file named more than once is compiled once.
+     */
+    private static List<Path> collectSources(List<Path> inputs) throws IOException {
+        List<Path> sources = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> files = Files.list(input)) {
+                    sources.addAll(files
+                        .filter(Files::isRegularFile)
+                        .filter(file -> !isOutputFile(file))
+                        .sorted()
+                        .collect(Collectors.toList()));
+                }
+            } else if (Files.isRegularFile(input)) {
+                sources.add(input);
+            } else {
+                throw new IOException("No such file or directory: " + input);
+            }
+        }
+        Set<Path> seen = new HashSet<>();
+        sources.removeIf(source -> !seen.add(source.toAbsolutePath().normalize()));
+        return sources;
+    }
+
+    private static boolean isOutputFile(Path file) {
+        String name = file.getFileName().toString();
+        return OutputFile.isTemporary(file)
+            || name.endsWith(CompilationSession.TRIPLET_SUFFIX)
+            || name.endsWith(CompilationSession.OPTIMIZATION_SUFFIX)
+            || name.endsWith(CompilationSession.ASSEMBLY_SUFFIX)
+            || name.endsWith(CompilationSession.BINARY_TRIPLET_SUFFIX);
+    }
+
+    private static int usage(String error) {
+        if (error != null) {
+            System.err.println("error: " + error);
+        }
+        System.err.println("Usage: java src.compiler.CompilerCli [--jobs N] [--out DIR] [--stream] <file|directory>...");
+        return error != null ? EXIT_USAGE : EXIT_OK;
+    }
+}
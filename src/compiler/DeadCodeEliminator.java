@@ -0,0 +1,327 @@
+package src.compiler;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import src.tokens.SymbolPool;
+
+/**
+ * Eliminación de código muerto sobre el triplo, basada en vivacidad.
+ *
+ * Las temporales (T1, T2...) sólo viven mientras otra línea las lee, así que su
+ * vivacidad se calcula entre bloques básicos. Las variables del programa se
+ * consideran vivas al final, porque su valor final es el resultado del
+ * programa; una asignación a una de ellas sólo está muerta si la misma
+ * variable se vuelve a asignar más adelante en el bloque sin leerse antes.
+ * Las comparaciones y los saltos nunca se eliminan.
+ */
+public class DeadCodeEliminator {
+    private int removedEntries;
+
+    /**
+     * Elimina asignaciones muertas y temporales sin uso
+     * @param code Triplo a limpiar
+     * @return Triplo sin las líneas muertas, con los saltos ajustados
+     */
+    public TripletCode eliminate(TripletCode code) {
+        removedEntries = 0;
+        TripletCode current = code;
+        while (true) {
+            // Quitar un uso puede dejar muerta una temporal de otro bloque
+            boolean[] removed = findDeadEntries(current);
+            int count = 0;
+            for (boolean dead : removed) {
+                if (dead) count++;
+            }
+            if (count == 0) {
+                return current;
+            }
+            removedEntries += count;
+            current = current.compact(removed);
+        }
+    }
+
+    /**
+     * Líneas eliminadas en la última llamada a {@link #eliminate(TripletCode)}
+     */
+    public int getRemovedEntries() {
+        return removedEntries;
+    }
+
+    /**
+     * Declaraciones que siguen en uso y cuyo valor inicial se puede leer.
+     * Una variable que no aparece en el triplo es una declaración sin uso; una
+     * que se asigna en el bloque inicial antes de leerse no necesita valor inicial.
+     * @param code Triplo ya optimizado
+     * @param declaredVariables Variables declaradas y su tipo, en orden de declaración
+     * @return Las variables que hay que inicializar, en el mismo orden
+     */
+    public Map<String, String> liveDeclarations(TripletCode code, Map<String, String> declaredVariables) {
+        SymbolPool symbols = code.symbols();
+        boolean[] used = new boolean[symbols.size()];
+        boolean[] assignedFirst = new boolean[symbols.size()];
+        boolean[] jumpTargets = new boolean[code.size()];
+        for (int i = 0; i < code.size(); i++) {
+            if (code.isJump(i)) {
+                jumpTargets[code.jumpTarget(i) - 1] = true;
+            }
+        }
+
+        boolean entryBlock = true;
+        for (int i = 0; i < code.size(); i++) {
+            if (jumpTargets[i] || code.isJump(i)) {
+                entryBlock = false;
+            }
+            if (code.isJump(i) || code.opcode(i) == TripletCode.END) {
+                continue;
+            }
+            int object = code.object(i);
+            if (code.isCopy(i) && entryBlock && !used[object]) {
+                assignedFirst[object] = true;
+            }
+            used[object] = true;
+            used[code.source(i)] = true;
+        }
+
+        Map<String, String> live = new LinkedHashMap<>();
+        for (Map.Entry<String, String> variable : declaredVariables.entrySet()) {
+            int id = symbols.find(variable.getKey());
+            if (id >= 0 && used[id] && !assignedFirst[id]) {
+                live.put(variable.getKey(), variable.getValue());
+            }
+        }
+        return live;
+    }
+
+    private boolean[] findDeadEntries(TripletCode code) {
+        int size = code.size();
+        boolean[] removed = new boolean[size];
+        int[] blockStart = basicBlocks(code);
+        int blocks = blockStart.length - 1;
+        int[][] liveOut = tempLiveOut(code, blockStart);
+
+        // Marcas por símbolo válidas sólo para el bloque actual, para no vaciar arreglos
+        int[] liveTemp = new int[code.symbols().size()];
+        int[] overwritten = new int[code.symbols().size()];
+        Arrays.fill(liveTemp, -1);
+        Arrays.fill(overwritten, -1);
+
+        for (int b = 0; b < blocks; b++) {
+            for (int temp : liveOut[b]) {
+                liveTemp[temp] = b;
+            }
+
+            for (int i = blockStart[b + 1] - 1; i >= blockStart[b]; i--) {
+                byte opcode = code.opcode(i);
+                if (TripletCode.isJump(opcode) || opcode == TripletCode.END) {
+                    continue;
+                }
+                int target = code.object(i);
+                int source = code.source(i);
+
+                if (code.isAssignment(i)) {
+                    boolean temp = code.isTemp(target);
+                    boolean dead = temp ? liveTemp[target] != b : overwritten[target] == b;
+                    if (dead || (opcode == TripletCode.COPY && target == source)) {
+                        removed[i] = true;
+                        continue;
+                    }
+                    if (temp) {
+                        liveTemp[target] = -1;
+                    } else {
+                        overwritten[target] = b;
+                    }
+                    if (opcode != TripletCode.COPY) {
+                        use(code, target, b, liveTemp, overwritten);
+                    }
+                    use(code, source, b, liveTemp, overwritten);
+                } else {
+                    // Comparación: lee ambos operandos
+                    use(code, target, b, liveTemp, overwritten);
+                    use(code, source, b, liveTemp, overwritten);
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static void use(TripletCode code, int name, int block, int[] liveTemp, int[] overwritten) {
+        if (code.isTemp(name)) {
+            liveTemp[name] = block;
+        } else if (overwritten[name] == block) {
+            overwritten[name] = -1;
+        }
+    }
+
+    /**
+     * Inicio (índice desde 0) de cada bloque básico; el último elemento es el
+     * tamaño del triplo
+     */
+    private static int[] basicBlocks(TripletCode code) {
+        int size = code.size();
+        boolean[] leaders = new boolean[size + 1];
+        leaders[0] = true;
+        for (int i = 0; i < size; i++) {
+            if (code.isJump(i)) {
+                leaders[code.jumpTarget(i) - 1] = true;
+                leaders[i + 1] = true;
+            }
+        }
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (leaders[i]) count++;
+        }
+        int[] starts = new int[count + 1];
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            if (leaders[i]) starts[next++] = i;
+        }
+        starts[count] = size;
+        return starts;
+    }
+
+    /**
+     * Temporales vivas a la salida de cada bloque. Se propagan hacia atrás desde
+     * cada lectura que no tiene una asignación previa en su bloque.
+     */
+    private static int[][] tempLiveOut(TripletCode code, int[] blockStart) {
+        int blocks = blockStart.length - 1;
+        int[] blockOfLine = new int[code.size()];
+        for (int b = 0; b < blocks; b++) {
+            Arrays.fill(blockOfLine, blockStart[b], blockStart[b + 1], b);
+        }
+
+        // Predecesores: el bloque anterior si no termina en JMP, y los saltos hacia el bloque
+        IntLists predecessors = new IntLists(blocks);
+        for (int b = 0; b < blocks; b++) {
+            int last = blockStart[b + 1] - 1;
+            if (code.isJump(last)) {
+                predecessors.add(blockOfLine[code.jumpTarget(last) - 1], b);
+            }
+            if (b + 1 < blocks && code.opcode(last) != TripletCode.JUMP) {
+                predecessors.add(b + 1, b);
+            }
+        }
+
+        // Lecturas expuestas y asignaciones de temporales en cada bloque
+        int symbols = code.symbols().size();
+        int[] definedIn = new int[symbols];
+        Arrays.fill(definedIn, -1);
+        IntLists exposed = new IntLists(blocks);
+        IntLists defined = new IntLists(blocks);
+        for (int b = 0; b < blocks; b++) {
+            for (int i = blockStart[b]; i < blockStart[b + 1]; i++) {
+                byte opcode = code.opcode(i);
+                if (TripletCode.isJump(opcode) || opcode == TripletCode.END) {
+                    continue;
+                }
+                int object = code.object(i);
+                int source = code.source(i);
+                if (code.isTemp(source) && definedIn[source] != b) {
+                    exposed.add(b, source);
+                }
+                if (opcode != TripletCode.COPY && code.isTemp(object) && definedIn[object] != b) {
+                    exposed.add(b, object);
+                }
+                if (code.isAssignment(i) && code.isTemp(object) && definedIn[object] != b) {
+                    definedIn[object] = b;
+                    defined.add(b, object);
+                }
+            }
+        }
+
+        // Cada temporal expuesta se propaga a los predecesores hasta encontrar su asignación
+        IntLists liveOut = new IntLists(blocks);
+        IntLists liveIn = new IntLists(blocks);
+        int[] stackBlocks = new int[16];
+        int[] stackTemps = new int[16];
+        int top = 0;
+        for (int b = 0; b < blocks; b++) {
+            for (int k = 0; k < exposed.size(b); k++) {
+                int temp = exposed.get(b, k);
+                if (liveIn.addUnique(b, temp)) {
+                    if (top == stackBlocks.length) {
+                        stackBlocks = Arrays.copyOf(stackBlocks, top * 2);
+                        stackTemps = Arrays.copyOf(stackTemps, top * 2);
+                    }
+                    stackBlocks[top] = b;
+                    stackTemps[top++] = temp;
+                }
+            }
+        }
+        while (top > 0) {
+            int b = stackBlocks[--top];
+            int temp = stackTemps[top];
+            for (int k = 0; k < predecessors.size(b); k++) {
+                int p = predecessors.get(b, k);
+                if (liveOut.addUnique(p, temp) && !defined.contains(p, temp) && liveIn.addUnique(p, temp)) {
+                    if (top == stackBlocks.length) {
+                        stackBlocks = Arrays.copyOf(stackBlocks, top * 2);
+                        stackTemps = Arrays.copyOf(stackTemps, top * 2);
+                    }
+                    stackBlocks[top] = p;
+                    stackTemps[top++] = temp;
+                }
+            }
+        }
+
+        int[][] result = new int[blocks][];
+        for (int b = 0; b < blocks; b++) {
+            result[b] = liveOut.toArray(b);
+        }
+        return result;
+    }
+
+    /**
+     * Listas pequeñas de enteros por bloque. Las temporales vivas en un bloque
+     * son pocas, así que buscarlas recorriendo la lista es suficiente.
+     */
+    private static class IntLists {
+        private static final int[] EMPTY = new int[0];
+        private final int[][] values;
+        private final int[] sizes;
+
+        IntLists(int count) {
+            values = new int[count][];
+            sizes = new int[count];
+            Arrays.fill(values, EMPTY);
+        }
+
+        void add(int list, int value) {
+            if (sizes[list] == values[list].length) {
+                values[list] = Arrays.copyOf(values[list], Math.max(2, sizes[list] * 2));
+            }
+            values[list][sizes[list]++] = value;
+        }
+
+        boolean addUnique(int list, int value) {
+            if (contains(list, value)) {
+                return false;
+            }
+            add(list, value);
+            return true;
+        }
+
+        boolean contains(int list, int value) {
+            for (int k = 0; k < sizes[list]; k++) {
+                if (values[list][k] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int size(int list) {
+            return sizes[list];
+        }
+
+        int get(int list, int index) {
+            return values[list][index];
+        }
+
+        int[] toArray(int list) {
+            return Arrays.copyOf(values[list], sizes[list]);
+        }
+    }
+}
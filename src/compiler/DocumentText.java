@@ -0,0 +1,67 @@
+package src.compiler;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/**
+ * Read-only view of a range of a {@link Document}. Characters are read through a
+ * {@link Segment} that points into the document's own storage, one stretch at a
+ * time, so the text is never copied. The document must not change while the view
+ * is read, which {@link Document#render(Runnable)} guarantees. Not thread-safe.
+ */
+final class DocumentText implements CharSequence {
+    private final Document document;
+    private final int offset;
+    private final int length;
+    private final Segment segment = new Segment();
+    private int segmentStart;       // Posición en la vista del primer carácter del segmento
+
+    DocumentText(Document document, int offset, int length) {
+        this.document = document;
+        this.offset = offset;
+        this.length = length;
+        segment.setPartialReturn(true);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + length);
+        }
+        int relative = index - segmentStart;
+        if (relative < 0 || relative >= segment.count) {
+            // El segmento puede quedarse antes del hueco del documento; se pide el tramo siguiente
+            try {
+                document.getText(offset + index, length - index, segment);
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            }
+            segmentStart = index;
+            relative = 0;
+        }
+        return segment.array[segment.offset + relative];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Range " + start + "-" + end + " of " + length);
+        }
+        return new DocumentText(document, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return document.getText(offset, length);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package src.compiler;
+
+/**
+ * Limpieza del flujo de control del triplo.
+ *
+ * El generador evalúa las condiciones en cortocircuito y cada comparación deja
+ * dos saltos, uno para verdadero y otro para falso, aunque uno de ellos caiga en
+ * la línea siguiente. Este paso encadena los saltos que llegan a otro JMP, quita
+ * los que van a la línea siguiente, deja un solo salto condicional después de
+ * cada comparación cuando el otro destino es la línea que sigue, y elimina las
+ * líneas a las que ya no se llega. Los saltos condicionales nunca se separan de
+ * su comparación, porque leen las banderas que ella deja.
+ */
+public class JumpOptimizer {
+    private int threadedJumps;
+    private int removedEntries;
+
+    /**
+     * Simplifica los saltos hasta que no cambia nada
+     * @param code Triplo a limpiar
+     * @return Triplo con los saltos simplificados; el original no se modifica
+     */
+    public TripletCode optimize(TripletCode code) {
+        threadedJumps = 0;
+        removedEntries = 0;
+        TripletCode current = code.compact(new boolean[code.size()]);
+        while (true) {
+            threadJumps(current);
+            boolean[] removed = findRedundantJumps(current);
+            markUnreachable(current, removed);
+            int count = 0;
+            for (boolean dead : removed) {
+                if (dead) count++;
+            }
+            if (count == 0) {
+                return current;
+            }
+            removedEntries += count;
+            current = current.compact(removed);
+        }
+    }
+
+    /**
+     * Saltos que se mandaron directo al destino final de una cadena de JMP
+     * en la última llamada a {@link #optimize(TripletCode)}
+     */
+    public int getThreadedJumps() {
+        return threadedJumps;
+    }
+
+    /**
+     * Saltos sobrantes y líneas inalcanzables eliminadas en la última llamada
+     * a {@link #optimize(TripletCode)}
+     */
+    public int getRemovedEntries() {
+        return removedEntries;
+    }
+
+    /**
+     * Un salto que llega a un JMP puede ir directo a donde lleva ese JMP. Un JMP
+     * no toca las banderas, así que también vale para los saltos condicionales.
+     */
+    private void threadJumps(TripletCode code) {
+        int size = code.size();
+        for (int i = 0; i < size; i++) {
+            if (!code.isJump(i)) {
+                continue;
+            }
+            int target = code.jumpTarget(i) - 1;
+            // Un ciclo de JMP sin salida se deja como está
+            for (int hops = 0; hops < size && target < size && target != i
+                    && code.opcode(target) == TripletCode.JUMP; hops++) {
+                target = code.jumpTarget(target) - 1;
+            }
+            if (target + 1 != code.jumpTarget(i) && target != i) {
+                code.setJumpTarget(i, target + 1);
+                threadedJumps++;
+            }
+        }
+    }
+
+    /**
+     * Saltos que se pueden quitar sin cambiar el camino que sigue el programa
+     */
+    private boolean[] findRedundantJumps(TripletCode code) {
+        int size = code.size();
+        boolean[] targeted = new boolean[size + 1];
+        for (int i = 0; i < size; i++) {
+            if (code.isJump(i)) {
+                targeted[code.jumpTarget(i) - 1] = true;
+            }
+        }
+
+        boolean[] removed = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            if (!code.isJump(i)) {
+                continue;
+            }
+            // Un salto a la línea siguiente no cambia nada
+            if (code.jumpTarget(i) == i + 2) {
+                removed[i] = true;
+                continue;
+            }
+            if (i + 1 >= size || !isConditional(code, i) || !isConditional(code, i + 1) || removed[i + 1]) {
+                continue;
+            }
+            boolean opposite = code.opcode(i) != code.opcode(i + 1);
+            if (code.jumpTarget(i) == code.jumpTarget(i + 1)) {
+                // Dos saltos al mismo destino con la misma comparación
+                if (targeted[i + 1]) {
+                    continue;
+                }
+                if (opposite) {
+                    code.set(i, TripletCode.JUMP, TripletCode.NONE, code.jumpTarget(i));
+                }
+                removed[i + 1] = true;
+            } else if (opposite && code.jumpTarget(i) == i + 3) {
+                // Si se cumple, el segundo salto no se toma y se cae en el mismo destino
+                removed[i] = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Marca las líneas a las que no se llega desde el inicio. El fin del
+     * programa siempre se conserva.
+     */
+    private void markUnreachable(TripletCode code, boolean[] removed) {
+        int size = code.size();
+        boolean[] reached = new boolean[size];
+        int[] pending = new int[size];
+        int count = 0;
+        if (size > 0) {
+            reached[0] = true;
+            pending[count++] = 0;
+        }
+        while (count > 0) {
+            int i = pending[--count];
+            if (code.isJump(i)) {
+                int target = code.jumpTarget(i) - 1;
+                if (target < size && !reached[target]) {
+                    reached[target] = true;
+                    pending[count++] = target;
+                }
+            }
+            if (code.opcode(i) != TripletCode.JUMP && i + 1 < size && !reached[i + 1]) {
+                reached[i + 1] = true;
+                pending[count++] = i + 1;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (!reached[i] && code.opcode(i) != TripletCode.END) {
+                removed[i] = true;
+            }
+        }
+    }
+
+    private static boolean isConditional(TripletCode code, int index) {
+        byte opcode = code.opcode(index);
+        return opcode == TripletCode.JUMP_TRUE || opcode == TripletCode.JUMP_FALSE;
+    }
+}
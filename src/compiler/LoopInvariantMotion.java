@@ -0,0 +1,262 @@
+package src.compiler;
+
+import java.util.Arrays;
+
+import src.tokens.SymbolPool;
+
+/**
+ * Movimiento de código invariante fuera de los ciclos.
+ *
+ * Los ciclos se reconocen con {@link LoopNest}. Dentro de un bloque, una
+ * expresión se acumula en una temporal ({@code T1 = a}, {@code T1 * b}...)
+ * hasta que alguien la lee. Si
+ * todos sus operandos son literales o variables que el ciclo nunca asigna, la
+ * expresión se calcula una sola vez en una variable nueva (TI1, TI2...), en un
+ * preencabezado antes de la condición, y dentro del ciclo queda una copia de esa
+ * variable. La expresión sale del ciclo más externo en el que sigue siendo
+ * invariante. Las variables TI no son temporales: viven en todo el ciclo, y la
+ * eliminación de código muerto las trata como variables del programa.
+ *
+ * Las divisiones no se mueven: el preencabezado se ejecuta aunque el cuerpo no,
+ * y en el ensamblador una división entre cero o con cociente grande interrumpe
+ * el programa.
+ */
+public class LoopInvariantMotion {
+    private int hoistedExpressions;
+
+    private LoopNest loops;
+    private int[] hoistedLoop;          // Por variable TI: ciclo a cuyo preencabezado se movió
+
+    // Estado del recorrido: triplo, líneas quitadas y preencabezado de cada ciclo
+    private TripletCode code;
+    private TripletCode body;
+    private boolean[] removed;
+    private TripletCode[] preheaders;
+    private int nextHoisted;
+    private int block;
+
+    // Por temporal: expresión abierta en el bloque actual, como lista de líneas
+    private int[] chainBlock;
+    private int[] chainFirst;
+    private int[] chainLast;
+    private int[] chainOperations;
+    private boolean[] chainInvariant;
+    private int[] nextInChain;          // Por línea: siguiente línea de la misma expresión, o -1
+    private int[] operand;              // Por línea: fuente de la expresión, ya resuelta
+
+    // Por temporal: invariante con el mismo valor, válido en el bloque indicado
+    private int[] alias;
+    private int[] aliasBlock;
+
+    /**
+     * Mueve las expresiones invariantes de cada ciclo a su preencabezado
+     * @return Triplo nuevo con la misma tabla de símbolos
+     */
+    public TripletCode hoist(TripletCode code) {
+        hoistedExpressions = 0;
+        int size = code.size();
+        loops = new LoopNest(code);
+        if (loops.count == 0) {
+            return code;
+        }
+
+        this.code = code;
+        SymbolPool symbols = code.symbols();
+        nextHoisted = 1;
+        body = new TripletCode(symbols, size);
+        for (int i = 0; i < size; i++) {
+            body.add(code, i);
+        }
+        removed = new boolean[size];
+        preheaders = new TripletCode[loops.count];
+
+        int symbolCount = symbols.size();
+        chainBlock = new int[symbolCount];
+        chainFirst = new int[symbolCount];
+        chainLast = new int[symbolCount];
+        chainOperations = new int[symbolCount];
+        chainInvariant = new boolean[symbolCount];
+        nextInChain = new int[size];
+        operand = new int[size];
+        alias = new int[symbolCount];
+        aliasBlock = new int[symbolCount];
+        Arrays.fill(chainBlock, -1);
+        Arrays.fill(aliasBlock, -1);
+        hoistedLoop = new int[symbolCount + 16];
+        Arrays.fill(hoistedLoop, -1);
+        int[] open = new int[16];
+        int openCount = 0;
+
+        boolean[] leaders = LoopNest.leaders(code);
+        block = -1;
+        for (int i = 0; i <= size; i++) {
+            if (i == size || leaders[i]) {
+                // Las expresiones no cruzan el final de un bloque
+                for (int k = 0; k < openCount; k++) {
+                    close(open[k]);
+                }
+                openCount = 0;
+                block++;
+                if (i == size) {
+                    break;
+                }
+            }
+            byte opcode = code.opcode(i);
+            if (code.isJump(i) || opcode == TripletCode.END) {
+                continue;
+            }
+            int object = code.object(i);
+            int source = code.source(i);
+
+            // Leer una temporal cierra su expresión
+            close(source);
+            if (!code.isAssignment(i)) {
+                close(object);
+                continue;
+            }
+
+            if (opcode == TripletCode.COPY) {
+                // Si el valor anterior no se leyó, sólo se descarta
+                chainBlock[object] = -1;
+                aliasBlock[object] = -1;
+                if (code.isTemp(object) && loops.innermost[i] >= 0) {
+                    chainBlock[object] = block;
+                    chainFirst[object] = i;
+                    chainLast[object] = i;
+                    chainOperations[object] = 0;
+                    operand[i] = resolve(source);
+                    chainInvariant[object] = invariantCandidate(operand[i]);
+                    nextInChain[i] = -1;
+                    if (openCount == open.length) {
+                        open = Arrays.copyOf(open, openCount * 2);
+                    }
+                    open[openCount++] = object;
+                }
+            } else {
+                aliasBlock[object] = -1;
+                if (chainBlock[object] == block) {
+                    nextInChain[chainLast[object]] = i;
+                    nextInChain[i] = -1;
+                    chainLast[object] = i;
+                    chainOperations[object]++;
+                    operand[i] = resolve(source);
+                    chainInvariant[object] &= opcode != TripletCode.DIV && invariantCandidate(operand[i]);
+                }
+            }
+        }
+
+        TripletCode result = loops.rebuild(code, body, removed, preheaders, null);
+        this.code = null;
+        body = null;
+        loops = null;
+        return result;
+    }
+
+    /**
+     * Cierra la expresión abierta de una temporal, si la hay, y la mueve fuera
+     * del ciclo si es invariante
+     */
+    private void close(int temp) {
+        if (temp >= chainBlock.length || chainBlock[temp] != block) {
+            return;
+        }
+        chainBlock[temp] = -1;
+        int first = chainFirst[temp];
+        if (!chainInvariant[temp]) {
+            return;
+        }
+        if (chainOperations[temp] == 0) {
+            // Una copia de un invariante: quien la lea puede usar el original
+            alias[temp] = operand[first];
+            aliasBlock[temp] = block;
+            return;
+        }
+
+        int loop = outermostInvariantLoop(loops.innermost[first], first);
+        if (loop < 0) {
+            return;
+        }
+        SymbolPool symbols = code.symbols();
+        int hoisted = symbols.intern("TI" + nextHoisted++);
+        if (hoisted >= hoistedLoop.length) {
+            int old = hoistedLoop.length;
+            hoistedLoop = Arrays.copyOf(hoistedLoop, Math.max(hoisted + 1, old * 2));
+            Arrays.fill(hoistedLoop, old, hoistedLoop.length, -1);
+        }
+        hoistedLoop[hoisted] = loop;
+        if (preheaders[loop] == null) {
+            preheaders[loop] = new TripletCode(symbols, 8);
+        }
+        for (int row = first; row >= 0; row = nextInChain[row]) {
+            preheaders[loop].add(code.opcode(row), hoisted, operand[row]);
+            if (row != first) {
+                removed[row] = true;
+            }
+        }
+        body.set(first, TripletCode.COPY, temp, hoisted);
+        alias[temp] = hoisted;
+        aliasBlock[temp] = block;
+        hoistedExpressions++;
+    }
+
+    /**
+     * Símbolo que tiene el mismo valor que una temporal copiada de un invariante
+     */
+    private int resolve(int symbol) {
+        return symbol < aliasBlock.length && aliasBlock[symbol] == block ? alias[symbol] : symbol;
+    }
+
+    /**
+     * Operando que puede ser invariante en algún ciclo: un literal, una variable
+     * del programa o una variable TI
+     */
+    private boolean invariantCandidate(int symbol) {
+        return code.isLiteral(symbol) || !code.isTemp(symbol)
+            || (symbol < hoistedLoop.length && hoistedLoop[symbol] >= 0);
+    }
+
+    /**
+     * Ciclo más externo, entre los que contienen una expresión, en el que todos
+     * sus operandos son invariantes
+     * @return El ciclo, o -1 si no hay
+     */
+    private int outermostInvariantLoop(int innermost, int first) {
+        int best = -1;
+        for (int loop = innermost; loop >= 0; loop = loops.parent[loop]) {
+            boolean invariant = true;
+            for (int row = first; row >= 0 && invariant; row = nextInChain[row]) {
+                invariant = isInvariant(operand[row], loop);
+            }
+            if (!invariant) {
+                // Si no es invariante aquí, tampoco en los ciclos que contienen a éste
+                break;
+            }
+            if (loops.valid[loop]) {
+                best = loop;
+            }
+        }
+        return best;
+    }
+
+    private boolean isInvariant(int symbol, int loop) {
+        if (code.isLiteral(symbol)) {
+            return true;
+        }
+        if (symbol < hoistedLoop.length && hoistedLoop[symbol] >= 0) {
+            // Se asigna en el preencabezado de su ciclo, justo antes de su inicio
+            int start = loops.start[hoistedLoop[symbol]];
+            return !(loops.start[loop] < start && start <= loops.end[loop]);
+        }
+        if (code.isTemp(symbol)) {
+            return false;
+        }
+        return !loops.isAssignedIn(symbol, loop);
+    }
+
+    /**
+     * Expresiones movidas fuera de un ciclo en la última llamada a {@link #hoist(TripletCode)}
+     */
+    public int getHoistedExpressions() {
+        return hoistedExpressions;
+    }
+}
@@ -0,0 +1,268 @@
+package src.compiler;
+
+import java.util.Arrays;
+
+/**
+ * Ciclos de un triplo y las líneas donde se asigna cada símbolo.
+ *
+ * Los ciclos se reconocen por su JMP de regreso: un while va desde el inicio de
+ * su condición hasta ese salto. Los pasos que sacan código de un ciclo lo ponen
+ * en un preencabezado, justo antes de su inicio, que sólo se ejecuta al entrar
+ * al ciclo desde fuera.
+ */
+final class LoopNest {
+    // Ciclos: inicio y fin (índices desde 0), ciclo que los contiene, y si se puede mover código
+    final int[] start;
+    final int[] end;
+    final int[] parent;
+    final boolean[] valid;
+    final int count;
+    final int[] innermost;          // Por línea: ciclo más interno que la contiene, o -1
+
+    // Por símbolo: líneas donde se asigna, ordenadas (formato comprimido por filas)
+    private int[] assignmentStart;
+    private int[] assignmentLines;
+
+    /**
+     * Reconoce los ciclos por sus saltos de regreso y los anida. Un ciclo en el
+     * que se entra desde fuera por otra línea que no sea su inicio no se toca.
+     */
+    LoopNest(TripletCode code) {
+        int size = code.size();
+        int[] endAt = new int[size];
+        Arrays.fill(endAt, -1);
+        int loops = 0;
+        for (int i = 0; i < size; i++) {
+            if (code.opcode(i) == TripletCode.JUMP && code.jumpTarget(i) - 1 <= i) {
+                int head = code.jumpTarget(i) - 1;
+                if (endAt[head] < 0) {
+                    loops++;
+                }
+                endAt[head] = Math.max(endAt[head], i);
+            }
+        }
+        count = loops;
+        start = new int[loops];
+        end = new int[loops];
+        parent = new int[loops];
+        valid = new boolean[loops];
+        innermost = new int[size];
+
+        // Los ciclos se numeran por su inicio y se anidan con una pila
+        int[] stack = new int[loops + 1];
+        int depth = 0;
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            while (depth > 0 && end[stack[depth - 1]] < i) {
+                depth--;
+            }
+            if (endAt[i] >= 0) {
+                int loop = next++;
+                start[loop] = i;
+                end[loop] = endAt[i];
+                parent[loop] = depth > 0 ? stack[depth - 1] : -1;
+                // Un ciclo que cruza el final de otro no está bien anidado
+                valid[loop] = depth == 0 || end[loop] <= end[stack[depth - 1]];
+                stack[depth++] = loop;
+            }
+            innermost[i] = depth > 0 ? stack[depth - 1] : -1;
+        }
+
+        // Un salto desde fuera hacia el interior de un ciclo invalida ese ciclo
+        for (int i = 0; i < size; i++) {
+            if (!code.isJump(i)) {
+                continue;
+            }
+            int target = code.jumpTarget(i) - 1;
+            if (target >= size) {
+                continue;
+            }
+            for (int loop = innermost[target]; loop >= 0; loop = parent[loop]) {
+                if (start[loop] <= i && i <= end[loop]) {
+                    break;
+                }
+                if (target != start[loop]) {
+                    valid[loop] = false;
+                }
+            }
+        }
+        if (loops > 0) {
+            indexAssignments(code);
+        }
+    }
+
+    private void indexAssignments(TripletCode code) {
+        int symbolCount = code.symbols().size();
+        assignmentStart = new int[symbolCount + 1];
+        for (int i = 0; i < code.size(); i++) {
+            if (code.isAssignment(i)) {
+                assignmentStart[code.object(i) + 1]++;
+            }
+        }
+        for (int s = 0; s < symbolCount; s++) {
+            assignmentStart[s + 1] += assignmentStart[s];
+        }
+        assignmentLines = new int[assignmentStart[symbolCount]];
+        int[] fill = Arrays.copyOf(assignmentStart, symbolCount);
+        for (int i = 0; i < code.size(); i++) {
+            if (code.isAssignment(i)) {
+                assignmentLines[fill[code.object(i)]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Primera asignación de un símbolo dentro de un ciclo, como posición en la
+     * lista de sus asignaciones
+     * @return La posición, o {@link #lastAssignment(int)} si no hay
+     */
+    int firstAssignment(int symbol, int loop) {
+        int from = assignmentStart[symbol];
+        int to = assignmentStart[symbol + 1];
+        int at = Arrays.binarySearch(assignmentLines, from, to, start[loop]);
+        return at < 0 ? -at - 1 : at;
+    }
+
+    /**
+     * Fin de la lista de asignaciones de un símbolo
+     */
+    int lastAssignment(int symbol) {
+        return assignmentStart[symbol + 1];
+    }
+
+    /**
+     * Línea de una asignación, por su posición en la lista
+     */
+    int assignmentLine(int position) {
+        return assignmentLines[position];
+    }
+
+    /**
+     * Indica si alguna asignación del símbolo cae dentro del ciclo
+     */
+    boolean isAssignedIn(int symbol, int loop) {
+        int at = firstAssignment(symbol, loop);
+        return at < lastAssignment(symbol) && assignmentLines[at] <= end[loop];
+    }
+
+    static boolean[] leaders(TripletCode code) {
+        boolean[] leaders = new boolean[code.size() + 1];
+        leaders[0] = true;
+        for (int i = 0; i < code.size(); i++) {
+            if (code.isJump(i)) {
+                int target = code.jumpTarget(i) - 1;
+                if (target < code.size()) {
+                    leaders[target] = true;
+                }
+                leaders[i + 1] = true;
+            }
+        }
+        return leaders;
+    }
+
+    /**
+     * Arma el triplo final: cada preencabezado va justo antes del inicio de su
+     * ciclo, y los saltos que llegan al inicio desde fuera del ciclo entran por él
+     * @param body Líneas del triplo ya modificadas, en sus posiciones originales
+     * @param removed Líneas que se quitan
+     * @param preheaders Código de cada ciclo para su preencabezado, o null
+     * @param appended Código que va después de cada línea, o null si no hay
+     */
+    TripletCode rebuild(TripletCode code, TripletCode body, boolean[] removed, TripletCode[] preheaders,
+            TripletCode[] appended) {
+        int size = code.size();
+        int[] headLoop = new int[size];
+        Arrays.fill(headLoop, -1);
+        for (int loop = 0; loop < count; loop++) {
+            if (preheaders[loop] != null) {
+                headLoop[start[loop]] = loop;
+            }
+        }
+
+        TripletCode result = new TripletCode(code.symbols(), size + size / 8);
+        int[] newLines = new int[size + 1];         // Posición nueva (desde 1) de cada línea
+        int[] preheaderLines = new int[size + 1];   // Inicio del preencabezado antes de cada línea
+        for (int i = 0; i < size; i++) {
+            preheaderLines[i] = result.size() + 1;
+            if (headLoop[i] >= 0) {
+                addAll(result, preheaders[headLoop[i]]);
+            }
+            newLines[i] = result.size() + 1;
+            if (!removed[i]) {
+                result.add(body, i);
+            }
+            if (appended != null && appended[i] != null) {
+                addAll(result, appended[i]);
+            }
+        }
+        newLines[size] = result.size() + 1;
+        preheaderLines[size] = newLines[size];
+
+        for (int i = 0; i < size; i++) {
+            if (removed[i] || !code.isJump(i)) {
+                continue;
+            }
+            int target = code.jumpTarget(i) - 1;
+            int line = newLines[target];
+            if (target < size && headLoop[target] >= 0) {
+                int loop = headLoop[target];
+                boolean inside = start[loop] <= i && i <= end[loop];
+                line = inside ? newLines[target] : preheaderLines[target];
+            }
+            result.setJumpTarget(newLines[i] - 1, line);
+        }
+        return result;
+    }
+
+    private static void addAll(TripletCode result, TripletCode rows) {
+        for (int k = 0; k < rows.size(); k++) {
+            result.add(rows, k);
+        }
+    }
+
+    /**
+     * Quita las variables de ciclo que ya nadie lee, por ejemplo porque la
+     * eliminación de código muerto quitó la copia que las usaba dentro del ciclo
+     * @return Triplo sin sus asignaciones, o el mismo si todas se leen
+     */
+    static TripletCode removeUnused(TripletCode code) {
+        while (true) {
+            int symbolCount = code.symbols().size();
+            boolean[] read = new boolean[symbolCount];
+            for (int i = 0; i < code.size(); i++) {
+                if (code.isJump(i) || code.opcode(i) == TripletCode.END) {
+                    continue;
+                }
+                // Las operaciones de su propia expresión no cuentan como lecturas
+                if (code.source(i) != code.object(i)) {
+                    read[code.source(i)] = true;
+                }
+                if (!code.isAssignment(i)) {
+                    read[code.object(i)] = true;
+                }
+            }
+            boolean[] removed = new boolean[code.size()];
+            boolean any = false;
+            for (int i = 0; i < code.size(); i++) {
+                if (code.isAssignment(i) && !read[code.object(i)]
+                        && isLoopVariable(code.symbols().name(code.object(i)))) {
+                    removed[i] = true;
+                    any = true;
+                }
+            }
+            if (!any) {
+                return code;
+            }
+            code = code.compact(removed);
+        }
+    }
+
+    /**
+     * Variable creada por los pasos de ciclos: TI (invariante) o TS (inducción)
+     * seguido de un dígito
+     */
+    static boolean isLoopVariable(String name) {
+        return name.length() > 2 && name.charAt(0) == 'T' && (name.charAt(1) == 'I' || name.charAt(1) == 'S')
+            && Character.isDigit(name.charAt(2));
+    }
+}
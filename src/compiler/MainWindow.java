@@ -1,20 +1,72 @@
 package src.compiler;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.DocumentFilter;
+import javax.swing.text.Element;
 
+import src.analysis.AnalysisResult;
+import src.analysis.IncrementalAnalyzer;
+import src.analysis.SourceText;
 import src.tables.ErrorTable;
 import src.tables.SymbolTable;
 import src.theme.DarkThemeColors;
 
 import java.awt.*;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MainWindow extends JFrame {
     private JTextArea inputArea;
     private JButton analyzeButton;
     private JButton clearButton;
-    public static SymbolTable symbolTable;  // Made static to access from ErrorTable
+    private JCheckBox liveCheckBox;
+    private SymbolTable symbolTable;
     private ErrorTable errorTable;
 
+    // El análisis corre fuera del EDT; un solo hilo mantiene las compilaciones en orden
+    private final ExecutorService compileExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "compiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Lee el texto del documento; de cada línea sólo guarda su forma y su largo
+    private final IncrementalAnalyzer analyzer = new IncrementalAnalyzer(new SourceText() {
+        @Override
+        public void read(Runnable action) {
+            inputArea.getDocument().render(action);
+        }
+
+        @Override
+        public CharSequence text() {
+            Document document = inputArea.getDocument();
+            return new DocumentText(document, 0, document.getLength());
+        }
+    });
+
+    // Modo en vivo: se analiza cuando el usuario deja de escribir por LIVE_DELAY_MS
+    private static final int LIVE_DELAY_MS = 30;
+    private final Timer liveTimer = new Timer(LIVE_DELAY_MS, e -> startLiveAnalysis());
+    private final AtomicInteger edits = new AtomicInteger();
+    private Future<?> liveAnalysis;
+
+    // Documentos grandes: sin ajuste de línea, que obliga a medir cada palabra del texto
+    private static final int LARGE_DOCUMENT = 256 * 1024;
+
+    private static final String TRIPLET_FILE = "triplet.txt";
+    private static final String OPTIMIZATION_FILE = "codebase_optimization.txt";
+    private static final String ASSEMBLY_FILE = "assembly.txt";
+
     public MainWindow() {
         setupDarkTheme();
         setupWindow();
@@ -58,6 +110,9 @@ public class MainWindow extends JFrame {
         clearButton = new JButton("Clear Tables");
         buttonPanel.add(analyzeButton);
         buttonPanel.add(clearButton);
+        liveCheckBox = new JCheckBox("Live");
+        liveCheckBox.setToolTipText("Update the tables while typing");
+        buttonPanel.add(liveCheckBox);
         
         // Add components to left panel
         leftPanel.add(new JLabel("Enter code:"), BorderLayout.NORTH);
@@ -77,7 +132,7 @@ public class MainWindow extends JFrame {
 
         // Error table panel
         JPanel errorTablePanel = new JPanel(new BorderLayout(5, 5));
-        errorTable = new ErrorTable();
+        errorTable = new ErrorTable(symbolTable);
         errorTablePanel.add(new JLabel("Error Table:"), BorderLayout.NORTH);
         errorTablePanel.add(new JScrollPane(errorTable), BorderLayout.CENTER);
 
@@ -101,26 +156,57 @@ public class MainWindow extends JFrame {
         clearButton.setBackground(DarkThemeColors.BUTTON_BG);
         clearButton.setForeground(DarkThemeColors.DARK_TEXT);
         clearButton.setFocusPainted(false);
+        liveCheckBox.setForeground(DarkThemeColors.DARK_TEXT);
+        liveCheckBox.setFocusPainted(false);
     }
 
     private void setupEvents() {
+        ((AbstractDocument) inputArea.getDocument()).setDocumentFilter(new DocumentFilter() {
+            @Override
+            public void insertString(FilterBypass fb, int offset, String text, AttributeSet attrs)
+                    throws BadLocationException {
+                updateLineWrap(fb.getDocument().getLength() + text.length());
+                super.insertString(fb, offset, text, attrs);
+            }
+
+            @Override
+            public void replace(FilterBypass fb, int offset, int length, String text, AttributeSet attrs)
+                    throws BadLocationException {
+                int inserted = text != null ? text.length() : 0;
+                updateLineWrap(fb.getDocument().getLength() - length + inserted);
+                super.replace(fb, offset, length, text, attrs);
+            }
+
+            @Override
+            public void remove(FilterBypass fb, int offset, int length) throws BadLocationException {
+                super.remove(fb, offset, length);
+                updateLineWrap(fb.getDocument().getLength());
+            }
+        });
+
+        inputArea.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                linesChanged(e);
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                linesChanged(e);
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Cambios de atributos: el texto no cambia
+            }
+        });
+
         analyzeButton.addActionListener(e -> {
-            String input = inputArea.getText();
-            if (!input.isEmpty()) {
-                symbolTable.clearTable();
-                errorTable.clearTable();
-                
-                // Process each line
-                String[] lines = input.split("\n");
-                for (int i = 0; i < lines.length; i++) {
-                    String line = lines[i].trim();
-                    if (!line.isEmpty()) {
-                        symbolTable.processInput(line, i + 1, errorTable);
-                    }
-                }
-                
-                // Generate original triplet
-                generateTriplets(input);
+            if (inputArea.getDocument().getLength() > 0) {
+                analyzeButton.setEnabled(false);
+                // Mientras se compila, el compilador lee el documento sin copiarlo
+                inputArea.setEditable(false);
+                compileExecutor.execute(this::compile);
             } else {
                 JOptionPane.showMessageDialog(this,
                     "Please enter code to analyze",
@@ -129,6 +215,16 @@ public class MainWindow extends JFrame {
             }
         });
 
+        liveTimer.setRepeats(false);
+        liveCheckBox.addActionListener(e -> {
+            if (liveCheckBox.isSelected()) {
+                startLiveAnalysis();
+            } else {
+                liveTimer.stop();
+                cancelLiveAnalysis();
+            }
+        });
+
         // Clear tables button action
         clearButton.addActionListener(e -> {
             symbolTable.clearTable();
@@ -136,50 +232,171 @@ public class MainWindow extends JFrame {
         });
     }
 
-    private void generateTriplets(String code) {
+    /**
+     * Tells the analyzer which lines an edit touched. Runs while the document is
+     * still locked for writing, so no analysis reads it meanwhile; the analyzer
+     * reads those lines for their shape and re-analyzes them on the next compile.
+     */
+    private void linesChanged(DocumentEvent e) {
+        Document document = e.getDocument();
+        Element root = document.getDefaultRootElement();
+        DocumentEvent.ElementChange change = e.getChange(root);
+
+        // Sin cambio de elementos la edición quedó dentro de una sola línea
+        int first = change != null ? change.getIndex() : root.getElementIndex(e.getOffset());
+        int removed = change != null ? change.getChildrenRemoved().length : 1;
+        int added = change != null ? change.getChildrenAdded().length : 1;
+
+        List<CharSequence> texts = new ArrayList<>(added);
+        for (int i = first; i < first + added; i++) {
+            // El final de cada línea es su salto de línea, que no se incluye
+            Element line = root.getElement(i);
+            texts.add(new DocumentText(document, line.getStartOffset(),
+                line.getEndOffset() - line.getStartOffset() - 1));
+        }
+        analyzer.replaceLines(first, removed, texts);
+
+        // Cada tecla reinicia la espera y deja obsoleto el análisis en curso
+        edits.incrementAndGet();
+        cancelLiveAnalysis();
+        if (liveCheckBox.isSelected()) {
+            liveTimer.restart();
+        }
+    }
+
+    /**
+     * Queues a live analysis of the document as of the last edit. Runs on the EDT.
+     */
+    private void startLiveAnalysis() {
+        cancelLiveAnalysis();
+        int edit = edits.get();
+        liveAnalysis = compileExecutor.submit(() -> analyzeLive(edit));
+    }
+
+    private void cancelLiveAnalysis() {
+        // Si aún está en la cola no llega a correr; si ya corre, analyzeLive no publica
+        if (liveAnalysis != null) {
+            liveAnalysis.cancel(false);
+            liveAnalysis = null;
+        }
+    }
+
+    /**
+     * Analyzes on the background thread and publishes symbols and errors in a
+     * single EDT update, unless another edit arrived meanwhile
+     */
+    private void analyzeLive(int edit) {
+        if (edit != edits.get()) {
+            return;
+        }
         try {
-            // Generate original triplet
-            String originalFilePath = "triplet.txt";
-            String optimizationFilePath = "codebase_optimization.txt";
-            String assemblyFilePath = "assembly.txt";
-            TripletGenerator triploGenerator = new TripletGenerator();
-            triploGenerator.generateTriplo(code);
-            
-            // Forzar la eliminación del archivo existente
-            java.io.File file = new java.io.File(originalFilePath);
-            if (file.exists()) {
-                file.delete();
+            AnalysisResult result = analyzer.analyze();
+            if (edit != edits.get()) {
+                return;
             }
-            
-            // Guardar el triplo original
-            triploGenerator.saveToFile(originalFilePath);
-            
-            // Crear un JLabel personalizado con texto blanco
-            JLabel messageLabel = new JLabel(
-                "<html><body style='color: white;'>" +
-                "Files generated:<br>" +
-                "-Triplet: " + originalFilePath + "<br>" +
-                "-Optimization: " + optimizationFilePath + "<br>" +
-                "-Assembly: " + assemblyFilePath +
-                "</body></html>"
-            );
-            
-            // Crear un JOptionPane personalizado
-            JOptionPane optionPane = new JOptionPane(
-                messageLabel,
-                JOptionPane.INFORMATION_MESSAGE
-            );
-            optionPane.setPreferredSize(new Dimension(400, 200));
-            
-            // Crear y mostrar el diálogo
-            JDialog dialog = optionPane.createDialog(this, "Success");
-            dialog.setSize(400, 200);
-            dialog.setVisible(true);
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this,
-                "Error: " + ex.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
+            SwingUtilities.invokeLater(() -> {
+                if (edit == edits.get() && liveCheckBox.isSelected()) {
+                    symbolTable.showSymbols(result.getSymbols());
+                    errorTable.showDiagnostics(result.getDiagnostics());
+                }
+            });
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Turns word wrap off before the document grows past {@link #LARGE_DOCUMENT}
+     * and back on when it shrinks well below it. Called before the text changes,
+     * so a large paste is laid out only once, without wrapping.
+     */
+    private void updateLineWrap(int newLength) {
+        if (newLength > LARGE_DOCUMENT && inputArea.getLineWrap()) {
+            inputArea.setLineWrap(false);
+        } else if (newLength < LARGE_DOCUMENT / 2 && !inputArea.getLineWrap()) {
+            inputArea.setLineWrap(true);
+        }
+    }
+
+    /**
+     * Compiles on the background thread and hands the finished models to the EDT
+     * in a single update. Nothing here may touch Swing components directly.
+     * The source is read from the document itself, locked for reading until the
+     * outputs are written; the editor stays read-only meanwhile, so no edit waits
+     * for the lock.
+     */
+    private void compile() {
+        try {
+            CompilationSession session = new CompilationSession(null, TRIPLET_FILE,
+                OPTIMIZATION_FILE, ASSEMBLY_FILE);
+            AnalysisResult[] result = new AnalysisResult[1];
+            String[] failure = new String[1];
+            inputArea.getDocument().render(() -> {
+                // Sólo se vuelven a analizar los fragmentos editados desde la compilación anterior
+                result[0] = session.compile(analyzer.analyze(), analyzer.getSource());
+                try {
+                    generateTriplets(session);
+                } catch (IOException ex) {
+                    failure[0] = ex.getMessage();
+                }
+            });
+
+            SwingUtilities.invokeLater(() -> {
+                symbolTable.showSymbols(result[0].getSymbols());
+                errorTable.showDiagnostics(result[0].getDiagnostics());
+                compileFinished();
+                if (failure[0] != null) {
+                    showError(failure[0]);
+                } else {
+                    showGeneratedFiles();
+                }
+            });
+        } catch (RuntimeException ex) {
+            SwingUtilities.invokeLater(() -> {
+                compileFinished();
+                showError(ex.toString());
+            });
         }
     }
-}
\ No newline at end of file
+
+    private void compileFinished() {
+        analyzeButton.setEnabled(true);
+        inputArea.setEditable(true);
+    }
+
+    private void generateTriplets(CompilationSession session) throws IOException {
+        // Cada archivo se escribe aparte y reemplaza al anterior de una sola vez
+        session.writeOutputs();
+    }
+
+    private void showGeneratedFiles() {
+        // Crear un JLabel personalizado con texto blanco
+        JLabel messageLabel = new JLabel(
+            "<html><body style='color: white;'>" +
+            "Files generated:<br>" +
+            "-Triplet: " + TRIPLET_FILE + "<br>" +
+            "-Optimization: " + OPTIMIZATION_FILE + "<br>" +
+            "-Assembly: " + ASSEMBLY_FILE +
+            "</body></html>"
+        );
+
+        // Crear un JOptionPane personalizado
+        JOptionPane optionPane = new JOptionPane(
+            messageLabel,
+            JOptionPane.INFORMATION_MESSAGE
+        );
+        optionPane.setPreferredSize(new Dimension(400, 200));
+
+        // Crear y mostrar el diálogo
+        JDialog dialog = optionPane.createDialog(this, "Success");
+        dialog.setSize(400, 200);
+        dialog.setVisible(true);
+    }
+
+    private void showError(String message) {
+        JOptionPane.showMessageDialog(this,
+            "Error: " + message,
+            "Error",
+            JOptionPane.ERROR_MESSAGE);
+    }
+}
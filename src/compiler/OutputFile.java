@@ -0,0 +1,144 @@
+package src.compiler;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An output file written atomically: the text goes to a temporary file in the
+ * same directory, which replaces the target only on {@link #commit()}. Readers of
+ * the target never see a partial file, and a failed compilation leaves the
+ * previous output in place.
+ *
+ * Text is encoded as UTF-8 into a {@link FileChannel} through a buffer sized
+ * from the expected length of the file. Binary outputs write to the channel
+ * directly.
+ */
+public class OutputFile implements Closeable {
+    private static final int MIN_BUFFER = 8 * 1024;
+    private static final int MAX_BUFFER = 256 * 1024;
+
+    private final Path target;
+    private final Path temporary;
+    private final FileChannel channel;
+    private final int bufferSize;
+    private Writer writer;
+    private boolean closed;
+
+    /**
+     * @param target Output file
+     * @param expectedLength Approximate number of characters to be written
+     */
+    public OutputFile(Path target, long expectedLength) throws IOException {
+        this.target = target;
+        this.temporary = createTemporary(target);
+        this.channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.bufferSize = (int) Math.max(MIN_BUFFER, Math.min(expectedLength, MAX_BUFFER));
+    }
+
+    /**
+     * Creates an empty file next to the target. Unlike Files.createTempFile it gets
+     * the default permissions, which the target keeps after the rename.
+     */
+    private static Path createTemporary(Path target) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        while (true) {
+            String suffix = Long.toHexString(ThreadLocalRandom.current().nextLong());
+            try {
+                return Files.createFile(dir.resolve("." + target.getFileName() + "." + suffix + ".tmp"));
+            } catch (FileAlreadyExistsException e) {
+                // Se prueba con otro nombre
+            }
+        }
+    }
+
+    /**
+     * Indicates whether a file is a temporary output, left behind when a
+     * compilation was interrupted before its commit
+     */
+    public static boolean isTemporary(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(".") && name.endsWith(".tmp");
+    }
+
+    /**
+     * Text writer of the file, created on first use
+     */
+    public Writer writer() {
+        if (writer == null) {
+            writer = new BufferedWriter(
+                Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), bufferSize), bufferSize);
+        }
+        return writer;
+    }
+
+    /**
+     * Channel of the file, for binary outputs that do not use {@link #writer()}
+     */
+    public FileChannel channel() {
+        return channel;
+    }
+
+    /**
+     * Copies what has been written so far to another writer
+     */
+    public void copyTo(Writer destination) throws IOException {
+        writer().flush();
+        try (Reader reader = Files.newBufferedReader(temporary, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[MIN_BUFFER];
+            int read;
+            while ((read = reader.read(buffer)) > 0) {
+                destination.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Closes the file and moves it over the target
+     */
+    public void commit() throws IOException {
+        closeWriter();
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Discards the file unless it was committed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            closeWriter();
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void closeWriter() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                if (writer != null) {
+                    writer.close();
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
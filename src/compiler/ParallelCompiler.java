@@ -0,0 +1,73 @@
+package src.compiler;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Compiles independent source files concurrently on a work-stealing pool,
+ * one {@link CompilationSession} per file.
+ */
+public class ParallelCompiler {
+    private final int parallelism;
+
+    /**
+     * @param parallelism Number of worker threads
+     */
+    public ParallelCompiler(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs every session and waits until all of them finish
+     * @param sessions Sessions to run; each one keeps its own results, including
+     *        the exception that stopped it
+     */
+    public void compileAll(List<CompilationSession> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        if (parallelism == 1 || sessions.size() == 1) {
+            for (CompilationSession session : sessions) {
+                session.run();
+            }
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, sessions.size()));
+        try {
+            pool.invoke(new CompileTask(sessions, 0, sessions.size()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Splits the range of sessions in halves until a single file is left, so idle
+     * workers can steal the pending halves of busy ones
+     */
+    private static class CompileTask extends RecursiveAction {
+        private final List<CompilationSession> sessions;
+        private final int from;
+        private final int to;
+
+        CompileTask(List<CompilationSession> sessions, int from, int to) {
+            this.sessions = sessions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                sessions.get(from).run();
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CompileTask(sessions, from, middle), new CompileTask(sessions, middle, to));
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package src.compiler;
+
+import java.util.Arrays;
+
+/**
+ * Optimización de mirilla (peephole) sobre el código ensamblador. Una tabla de
+ * reglas se aplica a cada instrucción mirando las vecinas, y el recorrido se
+ * repite mientras alguna regla cambie algo.
+ *
+ * Las reglas miran a lo más {@link #WINDOW} instrucciones hacia cada lado, y sólo
+ * a través de instrucciones MOV: una etiqueta, un salto o una operación cortan la
+ * ventana. Las cuentas de cada regla se acumulan en todas las llamadas a
+ * {@link #optimize(AssemblyCode)}.
+ */
+public class PeepholeOptimizer {
+    private static final int WINDOW = 16;           // Instrucciones que mira una regla hacia cada lado
+    private static final int MAX_PASSES = 8;
+    private static final int MAX_JUMP_CHAIN = 16;
+
+    /**
+     * Regla de la tabla: recibe la posición de una instrucción y devuelve si
+     * cambió el código
+     */
+    private interface Rule {
+        boolean apply(PeepholeOptimizer optimizer, int index);
+    }
+
+    private static final String[] RULE_NAMES = {
+        "self move", "redundant load", "repeated constant", "dead store",
+        "jump to next", "inverted branch", "jump threading", "unused label", "zero with XOR"
+    };
+
+    private static final Rule[] RULES = {
+        PeepholeOptimizer::selfMove,
+        PeepholeOptimizer::redundantLoad,
+        PeepholeOptimizer::repeatedConstant,
+        PeepholeOptimizer::deadStore,
+        PeepholeOptimizer::jumpToNext,
+        PeepholeOptimizer::invertedBranch,
+        PeepholeOptimizer::threadJump,
+        PeepholeOptimizer::unusedLabel,
+        PeepholeOptimizer::zeroWithXor
+    };
+
+    private final int[] applied = new int[RULES.length];
+    private final int[] removedLines = new int[RULES.length];
+
+    // Estado del recorrido actual
+    private AssemblyCode code;
+    private boolean[] removed;
+    private int firstLabel;
+    private int[] labelIndex;       // Posición de cada etiqueta, o -1
+    private int[] references;       // Saltos vivos hacia cada etiqueta
+    private int currentRule;
+
+    /**
+     * Optimiza el código en su lugar
+     */
+    public void optimize(AssemblyCode code) {
+        this.code = code;
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            int size = code.size();
+            removed = new boolean[size];
+            indexLabels();
+            boolean changed = false;
+            for (int i = 0; i < size; i++) {
+                for (currentRule = 0; currentRule < RULES.length && !removed[i]; currentRule++) {
+                    if (RULES[currentRule].apply(this, i)) {
+                        applied[currentRule]++;
+                        changed = true;
+                    }
+                }
+            }
+            code.compact(removed);
+            if (!changed) {
+                break;
+            }
+        }
+        this.code = null;
+        removed = null;
+        labelIndex = null;
+        references = null;
+    }
+
+    private void indexLabels() {
+        int low = Integer.MAX_VALUE;
+        int high = Integer.MIN_VALUE;
+        for (int i = 0; i < code.size(); i++) {
+            if (code.opcode(i) == AssemblyCode.LABEL || code.isJump(i)) {
+                low = Math.min(low, code.label(i));
+                high = Math.max(high, code.label(i));
+            }
+        }
+        firstLabel = low;
+        int count = low <= high ? high - low + 1 : 0;
+        labelIndex = new int[count];
+        references = new int[count];
+        Arrays.fill(labelIndex, -1);
+        for (int i = 0; i < code.size(); i++) {
+            if (code.opcode(i) == AssemblyCode.LABEL) {
+                labelIndex[code.label(i) - firstLabel] = i;
+            } else if (code.isJump(i)) {
+                references[code.label(i) - firstLabel]++;
+            }
+        }
+    }
+
+    private void remove(int index) {
+        removed[index] = true;
+        removedLines[currentRule]++;
+        if (code.isJump(index)) {
+            references[code.label(index) - firstLabel]--;
+        }
+    }
+
+    private int next(int index) {
+        do {
+            index++;
+        } while (index < code.size() && removed[index]);
+        return index;
+    }
+
+    private int previous(int index) {
+        do {
+            index--;
+        } while (index >= 0 && removed[index]);
+        return index;
+    }
+
+    private static boolean isWideRegister(int operand) {
+        return operand >= AssemblyCode.AX && operand <= AssemblyCode.BP;
+    }
+
+    private boolean isMemory(int operand) {
+        return !AssemblyCode.isRegister(operand) && !isLiteral(operand);
+    }
+
+    private boolean isLiteral(int operand) {
+        char first = code.operandText(operand).charAt(0);
+        return Character.isDigit(first) || first == '-' || first == '.' || first == '"';
+    }
+
+    /**
+     * Indica si, justo antes de una instrucción, el registro ya tiene el valor del
+     * operando: lo cargó o lo guardó un MOV anterior y desde entonces sólo hubo
+     * escrituras a otras variables, comparaciones o saltos condicionales que no se
+     * tomaron
+     */
+    private boolean holds(int index, int register, int value) {
+        int limit = WINDOW;
+        for (int j = previous(index); j >= 0 && limit-- > 0; j = previous(j)) {
+            byte opcode = code.opcode(j);
+            int first = code.first(j);
+            int second = code.second(j);
+            if (opcode == AssemblyCode.XOR && first == register && second == register) {
+                return "0".equals(code.operandText(value));
+            }
+            if (opcode == AssemblyCode.CMP || (code.isJump(j) && opcode != AssemblyCode.JMP)) {
+                continue;
+            }
+            if (opcode != AssemblyCode.MOV) {
+                return false;
+            }
+            if (first == register) {
+                return second == value;
+            }
+            if (first == value) {
+                return second == register;
+            }
+            if (!isMemory(first)) {
+                // Otro registro: AL y AH son parte de AX, y BL de BX
+                if (overlaps(first, register)) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean overlaps(int a, int b) {
+        return whole(a) == whole(b);
+    }
+
+    private static int whole(int register) {
+        if (register == AssemblyCode.AL || register == AssemblyCode.AH) {
+            return AssemblyCode.AX;
+        }
+        return register == AssemblyCode.BL ? AssemblyCode.BX : register;
+    }
+
+    /** MOV R, R */
+    private static boolean selfMove(PeepholeOptimizer o, int i) {
+        if (o.code.opcode(i) == AssemblyCode.MOV && o.code.first(i) == o.code.second(i)) {
+            o.remove(i);
+            return true;
+        }
+        return false;
+    }
+
+    /** MOV X, R ... MOV R, X: el registro ya tiene el valor de la variable */
+    private static boolean redundantLoad(PeepholeOptimizer o, int i) {
+        AssemblyCode code = o.code;
+        int register = code.first(i);
+        int value = code.second(i);
+        if (code.opcode(i) == AssemblyCode.MOV && isWideRegister(register) && o.isMemory(value)
+                && o.holds(i, register, value)) {
+            o.remove(i);
+            return true;
+        }
+        return false;
+    }
+
+    /** MOV R, k ... MOV R, k: une, entre otras, las inicializaciones en cero */
+    private static boolean repeatedConstant(PeepholeOptimizer o, int i) {
+        AssemblyCode code = o.code;
+        int register = code.first(i);
+        int value = code.second(i);
+        if (code.opcode(i) == AssemblyCode.MOV && isWideRegister(register) && o.isLiteral(value)
+                && o.holds(i, register, value)) {
+            o.remove(i);
+            return true;
+        }
+        return false;
+    }
+
+    /** MOV X, a ... MOV X, b sin leer X en medio: la primera escritura se pierde */
+    private static boolean deadStore(PeepholeOptimizer o, int i) {
+        AssemblyCode code = o.code;
+        int variable = code.first(i);
+        if (code.opcode(i) != AssemblyCode.MOV || !o.isMemory(variable)) {
+            return false;
+        }
+        int limit = WINDOW;
+        for (int k = o.next(i); k < code.size() && code.opcode(k) == AssemblyCode.MOV && limit-- > 0; k = o.next(k)) {
+            if (code.second(k) == variable) {
+                return false;
+            }
+            if (code.first(k) == variable) {
+                o.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Salto a la etiqueta que le sigue */
+    private static boolean jumpToNext(PeepholeOptimizer o, int i) {
+        AssemblyCode code = o.code;
+        if (!code.isJump(i)) {
+            return false;
+        }
+        for (int k = o.next(i); k < code.size() && code.opcode(k) == AssemblyCode.LABEL; k = o.next(k)) {
+            if (code.label(k) == code.label(i)) {
+                o.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Jcc A / Jncc B / A: el primer salto sobra, porque cuando no se toma el
+     * segundo se llega a A de todos modos
+     */
+    private static boolean invertedBranch(PeepholeOptimizer o, int i) {
+        AssemblyCode code = o.code;
+        if (!code.isJump(i) || code.opcode(i) == AssemblyCode.JMP) {
+            return false;
+        }
+        int next = o.next(i);
+        if (next >= code.size() || code.opcode(next) != complement(code.opcode(i))) {
+            return false;
+        }
+        for (int k = o.next(next); k < code.size() && code.opcode(k) == AssemblyCode.LABEL; k = o.next(k)) {
+            if (code.label(k) == code.label(i)) {
+                o.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte complement(byte jump) {
+        switch (jump) {
+            case AssemblyCode.JL: return AssemblyCode.JGE;
+            case AssemblyCode.JGE: return AssemblyCode.JL;
+            case AssemblyCode.JG: return AssemblyCode.JLE;
+            case AssemblyCode.JLE: return AssemblyCode.JG;
+            case AssemblyCode.JE: return AssemblyCode.JNE;
+            default: return AssemblyCode.JE;
+        }
+    }
+
+    /** Salto a una etiqueta seguida de JMP: va directo al destino final */
+    private static boolean threadJump(PeepholeOptimizer o, int i) {
+        AssemblyCode code = o.code;
+        if (!code.isJump(i)) {
+            return false;
+        }
+        int target = code.label(i);
+        for (int hop = 0; hop < MAX_JUMP_CHAIN; hop++) {
+            int next = o.jumpAfterLabel(target);
+            if (next < 0 || next == code.label(i)) {
+                break;
+            }
+            target = next;
+        }
+        if (target == code.label(i) || o.jumpAfterLabel(target) == code.label(i)) {
+            return false;
+        }
+        o.references[code.label(i) - o.firstLabel]--;
+        o.references[target - o.firstLabel]++;
+        code.set(i, code.opcode(i), target, AssemblyCode.NONE);
+        return true;
+    }
+
+    /**
+     * Destino del JMP que sigue a una etiqueta, o -1 si no hay uno
+     */
+    private int jumpAfterLabel(int label) {
+        int offset = label - firstLabel;
+        if (offset < 0 || offset >= labelIndex.length || labelIndex[offset] < 0 || removed[labelIndex[offset]]) {
+            return -1;
+        }
+        int k = next(labelIndex[offset]);
+        while (k < code.size() && code.opcode(k) == AssemblyCode.LABEL) {
+            k = next(k);
+        }
+        if (k >= code.size() || code.opcode(k) != AssemblyCode.JMP) {
+            return -1;
+        }
+        int target = code.label(k);
+        return target - firstLabel < labelIndex.length ? target : -1;
+    }
+
+    /**
+     * Etiqueta sin saltos hacia ella. La última del código se conserva: puede ser
+     * la que el fragmento siguiente usa como su primera línea.
+     */
+    private static boolean unusedLabel(PeepholeOptimizer o, int i) {
+        AssemblyCode code = o.code;
+        if (code.opcode(i) == AssemblyCode.LABEL && o.next(i) < code.size()
+                && o.references[code.label(i) - o.firstLabel] == 0) {
+            o.remove(i);
+            return true;
+        }
+        return false;
+    }
+
+    /** MOV R, 0 pasa a XOR R, R cuando nadie lee las banderas que cambia */
+    private static boolean zeroWithXor(PeepholeOptimizer o, int i) {
+        AssemblyCode code = o.code;
+        int register = code.first(i);
+        if (code.opcode(i) != AssemblyCode.MOV || !isWideRegister(register)
+                || !"0".equals(code.operandText(code.second(i))) || o.flagsRead(i)) {
+            return false;
+        }
+        code.set(i, AssemblyCode.XOR, register, register);
+        return true;
+    }
+
+    /**
+     * Indica si un salto puede leer las banderas que quedan después de una
+     * instrucción. Un JMP, o una ventana que se acaba, se tratan como lectura;
+     * MOV, PUSH y POP no cambian las banderas.
+     */
+    private boolean flagsRead(int index) {
+        int limit = WINDOW;
+        for (int k = next(index); k < code.size(); k = next(k)) {
+            if (limit-- == 0) {
+                return true;
+            }
+            byte opcode = code.opcode(k);
+            if (code.isJump(k)) {
+                return true;
+            }
+            if (opcode != AssemblyCode.MOV && opcode != AssemblyCode.LABEL
+                    && opcode != AssemblyCode.PUSH && opcode != AssemblyCode.POP) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Nombres de las reglas, en el orden de la tabla
+     */
+    public static String[] getRuleNames() {
+        return RULE_NAMES.clone();
+    }
+
+    /**
+     * Veces que se aplicó cada regla
+     */
+    public int getApplied(int rule) {
+        return applied[rule];
+    }
+
+    /**
+     * Líneas de ensamblador que quitó cada regla
+     */
+    public int getRemoved(int rule) {
+        return removedLines[rule];
+    }
+
+    /**
+     * Resumen de las reglas, una por línea
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        for (int rule = 0; rule < RULES.length; rule++) {
+            report.append(String.format("%-18s applied %7d  removed %7d\n",
+                RULE_NAMES[rule] + ":", applied[rule], removedLines[rule]));
+        }
+        return report.toString();
+    }
+}
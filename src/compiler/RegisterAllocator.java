@@ -0,0 +1,415 @@
+package src.compiler;
+
+import java.util.Arrays;
+
+/**
+ * Asignación de registros por barrido lineal (linear scan) sobre el triplo.
+ *
+ * Cada valor que se puede guardar en un registro es un intervalo de líneas:
+ * <ul>
+ * <li>Las temporales que nunca se leen fuera del bloque donde se asignan forman
+ * un intervalo por cada copia que las asigna, hasta su último uso en el bloque.
+ * Si reciben registro no tocan memoria.</li>
+ * <li>Las variables del programa (y las temporales que cruzan bloques) tienen un
+ * solo intervalo, desde su primera hasta su última aparición, ampliado hasta que
+ * ningún salto desde fuera entra en él después de su inicio. Su valor final es el
+ * resultado del programa, así que conservan su lugar en memoria: si reciben
+ * registro se cargan al inicio del intervalo, después de la etiqueta, y cada
+ * asignación escribe también la memoria. Las variables TI y TS que crean los
+ * pasos de ciclos no son resultado del programa y sólo se leen dentro de su
+ * intervalo: con registro no tocan memoria.</li>
+ * </ul>
+ *
+ * Los intervalos se recorren por su inicio y toman un registro libre; cuando no
+ * hay, se queda en memoria el intervalo activo que termina más tarde. AX y BX no
+ * se asignan: son el acumulador y el operando de MUL y DIV.
+ */
+public class RegisterAllocator {
+    /** Registros que se asignan a los valores */
+    public static final String[] REGISTERS = {"CX", "DX", "SI", "DI", "BP"};
+
+    /** Operando que queda en memoria, o que es un literal */
+    public static final byte MEMORY = -1;
+
+    private byte[] objectRegisters;
+    private byte[] sourceRegisters;
+    private boolean[] storedBack;
+    private int[] firstLoad;        // Por línea: primer intervalo que se carga ahí, o -1
+    private int[] nextLoad;         // Por intervalo: siguiente carga en la misma línea
+    private byte[] liveRegisters;   // Por línea: registros con un valor que se lee después
+    private int[] intervalSymbol;
+    private byte[] intervalRegister;
+    private int intervals;
+    private int spilledIntervals;
+
+    /**
+     * Asigna registros a las primeras líneas de un triplo
+     * @param code Triplo ya optimizado
+     * @param rows Número de líneas a considerar
+     */
+    public void allocate(TripletCode code, int rows) {
+        int symbolCount = code.symbols().size();
+        boolean[] leaders = findLeaders(code, rows);
+        boolean[] global = findGlobalSymbols(code, rows, symbolCount, leaders);
+
+        int[] objectInterval = new int[rows];
+        int[] sourceInterval = new int[rows];
+        Arrays.fill(objectInterval, -1);
+        Arrays.fill(sourceInterval, -1);
+        intervals = 0;
+        int[] start = new int[Math.max(16, rows / 2)];
+        int[] end = new int[start.length];
+        int[] symbolOf = new int[start.length];
+
+        // Temporales locales: un intervalo desde cada copia que las asigna
+        int[] current = new int[symbolCount];
+        int[] currentBlock = new int[symbolCount];
+        Arrays.fill(currentBlock, -1);
+        int block = -1;
+        for (int i = 0; i < rows; i++) {
+            if (leaders[i]) {
+                block++;
+            }
+            if (!hasOperands(code, i)) {
+                continue;
+            }
+            int source = code.source(i);
+            if (isValue(code, source) && !global[source]) {
+                sourceInterval[i] = current[source];
+                end[current[source]] = i;
+            }
+            int object = code.object(i);
+            if (isValue(code, object) && !global[object]) {
+                if (code.isCopy(i) || currentBlock[object] != block) {
+                    if (intervals == start.length) {
+                        start = Arrays.copyOf(start, intervals * 2);
+                        end = Arrays.copyOf(end, intervals * 2);
+                        symbolOf = Arrays.copyOf(symbolOf, intervals * 2);
+                    }
+                    current[object] = intervals;
+                    currentBlock[object] = block;
+                    start[intervals] = i;
+                    symbolOf[intervals++] = object;
+                }
+                objectInterval[i] = current[object];
+                end[current[object]] = i;
+            }
+        }
+
+        // Variables con lugar en memoria: un intervalo de la primera a la última aparición
+        int[] globalInterval = new int[symbolCount];
+        Arrays.fill(globalInterval, -1);
+        int firstGlobal = intervals;
+        for (int i = 0; i < rows; i++) {
+            if (!hasOperands(code, i)) {
+                continue;
+            }
+            for (int operand = 0; operand < 2; operand++) {
+                int symbol = operand == 0 ? code.object(i) : code.source(i);
+                if (!isValue(code, symbol) || !global[symbol]) {
+                    continue;
+                }
+                if (globalInterval[symbol] < 0) {
+                    if (intervals == start.length) {
+                        start = Arrays.copyOf(start, intervals * 2);
+                        end = Arrays.copyOf(end, intervals * 2);
+                        symbolOf = Arrays.copyOf(symbolOf, intervals * 2);
+                    }
+                    globalInterval[symbol] = intervals;
+                    start[intervals] = i;
+                    symbolOf[intervals++] = symbol;
+                }
+                end[globalInterval[symbol]] = i;
+                if (operand == 0) {
+                    objectInterval[i] = globalInterval[symbol];
+                } else {
+                    sourceInterval[i] = globalInterval[symbol];
+                }
+            }
+        }
+        JumpSources jumps = new JumpSources(code, rows);
+        for (int k = firstGlobal; k < intervals; k++) {
+            jumps.extend(k, start, end);
+        }
+
+        intervalSymbol = Arrays.copyOf(symbolOf, intervals);
+        intervalRegister = scan(start, end, intervals);
+
+        // Los intervalos de un mismo registro no se cruzan: a lo más un recorrido por registro
+        liveRegisters = new byte[rows];
+        for (int k = 0; k < intervals; k++) {
+            if (intervalRegister[k] != MEMORY) {
+                for (int i = start[k]; i < end[k]; i++) {
+                    liveRegisters[i] |= 1 << intervalRegister[k];
+                }
+            }
+        }
+
+        boolean[] loopVariable = new boolean[symbolCount];
+        for (int k = firstGlobal; k < intervals; k++) {
+            loopVariable[symbolOf[k]] = LoopNest.isLoopVariable(code.symbols().name(symbolOf[k]));
+        }
+        objectRegisters = new byte[rows];
+        sourceRegisters = new byte[rows];
+        storedBack = new boolean[rows];
+        for (int i = 0; i < rows; i++) {
+            objectRegisters[i] = objectInterval[i] >= 0 ? intervalRegister[objectInterval[i]] : MEMORY;
+            sourceRegisters[i] = sourceInterval[i] >= 0 ? intervalRegister[sourceInterval[i]] : MEMORY;
+            storedBack[i] = objectRegisters[i] != MEMORY && objectInterval[i] >= firstGlobal
+                && code.isAssignment(i) && !loopVariable[code.object(i)];
+        }
+
+        // Las variables con registro se cargan al inicio de su intervalo, salvo si ahí se copian
+        firstLoad = new int[rows];
+        nextLoad = new int[intervals];
+        Arrays.fill(firstLoad, -1);
+        for (int k = intervals - 1; k >= firstGlobal; k--) {
+            int line = start[k];
+            boolean copied = code.isCopy(line) && objectInterval[line] == k && sourceInterval[line] != k;
+            if (intervalRegister[k] != MEMORY && !copied) {
+                nextLoad[k] = firstLoad[line];
+                firstLoad[line] = k;
+            }
+        }
+    }
+
+    /**
+     * Barrido lineal: recorre los intervalos por su inicio y les asigna registro
+     */
+    private byte[] scan(int[] start, int[] end, int count) {
+        long[] order = new long[count];
+        for (int k = 0; k < count; k++) {
+            order[k] = ((long) start[k] << 32) | k;
+        }
+        Arrays.sort(order);
+
+        byte[] registers = new byte[count];
+        Arrays.fill(registers, MEMORY);
+        int[] active = new int[REGISTERS.length];    // Intervalo que ocupa cada registro, o -1
+        Arrays.fill(active, -1);
+        spilledIntervals = 0;
+        for (long entry : order) {
+            int k = (int) entry;
+            int free = -1;
+            int latest = -1;
+            for (byte r = 0; r < active.length; r++) {
+                if (active[r] >= 0 && end[active[r]] < start[k]) {
+                    active[r] = -1;
+                }
+                if (active[r] < 0) {
+                    if (free < 0) free = r;
+                } else if (latest < 0 || end[active[r]] > end[active[latest]]) {
+                    latest = r;
+                }
+            }
+            if (free >= 0) {
+                active[free] = k;
+                registers[k] = (byte) free;
+            } else if (end[active[latest]] > end[k]) {
+                // El que termina más tarde libera su registro y queda en memoria
+                registers[active[latest]] = MEMORY;
+                active[latest] = k;
+                registers[k] = (byte) latest;
+                spilledIntervals++;
+            } else {
+                spilledIntervals++;
+            }
+        }
+        return registers;
+    }
+
+    /**
+     * Símbolos que conservan su lugar en memoria: las variables del programa y
+     * las temporales que se leen en un bloque sin haberse asignado antes en él
+     */
+    private static boolean[] findGlobalSymbols(TripletCode code, int rows, int symbolCount, boolean[] leaders) {
+        boolean[] global = new boolean[symbolCount];
+        int[] assignedIn = new int[symbolCount];
+        Arrays.fill(assignedIn, -1);
+        int block = -1;
+        for (int i = 0; i < rows; i++) {
+            if (leaders[i]) {
+                block++;
+            }
+            if (!hasOperands(code, i)) {
+                continue;
+            }
+            int object = code.object(i);
+            int source = code.source(i);
+            if (isValue(code, source) && (!code.isTemp(source) || assignedIn[source] != block)) {
+                global[source] = true;
+            }
+            if (isValue(code, object)) {
+                boolean read = !code.isCopy(i);
+                if (!code.isTemp(object) || (read && assignedIn[object] != block)) {
+                    global[object] = true;
+                }
+                if (code.isAssignment(i)) {
+                    assignedIn[object] = block;
+                }
+            }
+        }
+        return global;
+    }
+
+    private static boolean[] findLeaders(TripletCode code, int rows) {
+        boolean[] leaders = new boolean[rows + 1];
+        leaders[0] = true;
+        for (int i = 0; i < rows; i++) {
+            if (code.isJump(i)) {
+                int target = code.jumpTarget(i) - 1;
+                if (target < rows) {
+                    leaders[target] = true;
+                }
+                leaders[i + 1] = true;
+            }
+        }
+        return leaders;
+    }
+
+    private static boolean hasOperands(TripletCode code, int index) {
+        return !code.isJump(index) && code.opcode(index) != TripletCode.END;
+    }
+
+    private static boolean isValue(TripletCode code, int symbol) {
+        return symbol != TripletCode.NONE && !code.isLiteral(symbol);
+    }
+
+    /**
+     * Registro del dato objeto de una línea, o {@link #MEMORY}
+     */
+    public byte objectRegister(int index) {
+        return objectRegisters[index];
+    }
+
+    /**
+     * Registro del dato fuente de una línea, o {@link #MEMORY}
+     */
+    public byte sourceRegister(int index) {
+        return sourceRegisters[index];
+    }
+
+    /**
+     * Indica si la asignación de una línea debe escribir también la memoria de
+     * la variable, porque ésta conserva su lugar en memoria
+     */
+    public boolean isStoredBack(int index) {
+        return storedBack[index];
+    }
+
+    /**
+     * Indica si un registro guarda, durante una línea, un valor que se lee en una
+     * línea posterior
+     */
+    public boolean isLiveAfter(int index, byte register) {
+        return (liveRegisters[index] & 1 << register) != 0;
+    }
+
+    /**
+     * Primera carga a registro que va antes de una línea, o -1
+     */
+    public int firstLoad(int index) {
+        return firstLoad[index];
+    }
+
+    /**
+     * Siguiente carga antes de la misma línea, o -1
+     */
+    public int nextLoad(int load) {
+        return nextLoad[load];
+    }
+
+    /**
+     * Símbolo que carga una carga
+     */
+    public int loadSymbol(int load) {
+        return intervalSymbol[load];
+    }
+
+    /**
+     * Registro que recibe una carga
+     */
+    public byte loadRegister(int load) {
+        return intervalRegister[load];
+    }
+
+    /**
+     * Intervalos de la última asignación
+     */
+    public int getIntervals() {
+        return intervals;
+    }
+
+    /**
+     * Intervalos que quedaron en memoria por falta de registros en la última asignación
+     */
+    public int getSpilledIntervals() {
+        return spilledIntervals;
+    }
+
+    /**
+     * Líneas de origen de los saltos hacia cada línea, en árboles de segmentos
+     * para consultar por rangos el origen mínimo y el máximo
+     */
+    private static final class JumpSources {
+        private final int size;
+        private final int[] min;
+        private final int[] max;
+
+        JumpSources(TripletCode code, int rows) {
+            int n = 1;
+            while (n < rows) {
+                n <<= 1;
+            }
+            size = n;
+            min = new int[2 * n];
+            max = new int[2 * n];
+            Arrays.fill(min, Integer.MAX_VALUE);
+            Arrays.fill(max, -1);
+            for (int i = 0; i < rows; i++) {
+                if (code.isJump(i)) {
+                    int target = code.jumpTarget(i) - 1;
+                    if (target < rows) {
+                        min[n + target] = Math.min(min[n + target], i);
+                        max[n + target] = Math.max(max[n + target], i);
+                    }
+                }
+            }
+            for (int k = n - 1; k > 0; k--) {
+                min[k] = Math.min(min[2 * k], min[2 * k + 1]);
+                max[k] = Math.max(max[2 * k], max[2 * k + 1]);
+            }
+        }
+
+        /**
+         * Amplía un intervalo hasta que todo salto hacia una línea posterior a su
+         * inicio salga de dentro de él
+         */
+        void extend(int interval, int[] start, int[] end) {
+            while (true) {
+                int from = start[interval] + 1;
+                int to = end[interval];
+                if (from > to) {
+                    return;
+                }
+                int lowest = Integer.MAX_VALUE;
+                int highest = -1;
+                for (int l = from + size, r = to + size + 1; l < r; l >>= 1, r >>= 1) {
+                    if ((l & 1) == 1) {
+                        lowest = Math.min(lowest, min[l]);
+                        highest = Math.max(highest, max[l++]);
+                    }
+                    if ((r & 1) == 1) {
+                        lowest = Math.min(lowest, min[--r]);
+                        highest = Math.max(highest, max[r]);
+                    }
+                }
+                if (lowest >= start[interval] && highest <= end[interval]) {
+                    return;
+                }
+                start[interval] = Math.min(start[interval], lowest);
+                end[interval] = Math.max(end[interval], highest);
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package src.compiler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import src.analysis.Diagnostics;
+import src.analysis.Scope;
+import src.analysis.SemanticAnalyzer;
+import src.errors.ErrorType;
+import src.parser.Program;
+import src.parser.Parser;
+import src.tokens.Lexer;
+import src.tokens.StatementReader;
+import src.tokens.SymbolPool;
+import src.tokens.TokenStream;
+
+/**
+ * Compiles a source of any size with bounded memory. The source is read through a
+ * {@link Reader} one top-level statement at a time (see {@link StatementReader});
+ * each statement is scanned, parsed, checked, translated and optimized on its own,
+ * and its triplets and assembly are written out before the next one is read. What
+ * stays in memory is the largest statement, which grows with the nesting of its
+ * {@code while} loops, plus the declared names.
+ *
+ * The outputs have the same layout as those of {@link TripletGenerator}. Because
+ * each statement is optimized separately, nothing is folded or reused across
+ * statements, and the assembly initializes every declared integer. The sections
+ * that come later in a file than they are produced are spooled to temporary files.
+ *
+ * Diagnostics are the same as those of a full analysis, in the same order.
+ */
+public class StreamingCompiler {
+    private static final int OUTPUT_BUFFER = 64 * 1024;
+
+    private final Map<String, String> declaredTypes = new HashMap<>();
+    private final Map<String, String> declaredVariables = new LinkedHashMap<>();
+    private final ChunkScope scope = new ChunkScope();
+    private final TripletGenerator generator = new TripletGenerator();
+
+    private Diagnostics diagnostics;
+    private List<PendingError> semanticErrors;
+    private int originalLines;      // Líneas ya escritas del triplo original
+    private int optimizedLines;     // Líneas ya escritas del triplo optimizado
+
+    /**
+     * Compiles a source and writes its outputs. The outputs replace the previous
+     * ones only if the source has no errors.
+     * @param source Código fuente; it is read but not closed
+     * @param tripletFilePath Archivo del triplo
+     * @param optimizationFilePath Archivo con el código original y el optimizado
+     * @param assemblyFilePath Archivo del código ensamblador
+     * @return The errors found
+     */
+    public Diagnostics compile(Reader source, String tripletFilePath, String optimizationFilePath,
+            String assemblyFilePath) throws IOException {
+        declaredTypes.clear();
+        declaredVariables.clear();
+        diagnostics = new Diagnostics();
+        semanticErrors = new ArrayList<>();
+        originalLines = 0;
+        optimizedLines = 0;
+
+        Path originalRows = null;
+        Path assemblyBody = null;
+        PeepholeOptimizer peephole = new PeepholeOptimizer();
+        try (OutputFile tripletFile = new OutputFile(Paths.get(tripletFilePath), OUTPUT_BUFFER);
+                OutputFile optimizationFile = new OutputFile(Paths.get(optimizationFilePath), OUTPUT_BUFFER);
+                OutputFile assemblyFile = new OutputFile(Paths.get(assemblyFilePath), OUTPUT_BUFFER)) {
+            originalRows = spoolFile(tripletFilePath);
+            assemblyBody = spoolFile(assemblyFilePath);
+            Writer triplets = tripletFile.writer();
+            Writer report = optimizationFile.writer();
+            try (BufferedWriter originals = Files.newBufferedWriter(originalRows, StandardCharsets.UTF_8);
+                    BufferedWriter body = Files.newBufferedWriter(assemblyBody, StandardCharsets.UTF_8)) {
+                report.write("--------- Original Code ---------\n");
+                triplets.write(TripletGenerator.TRIPLET_HEADER);
+
+                // El código original pasa al reporte a medida que se lee
+                AssemblyGenerator assembly = new AssemblyGenerator(body, peephole);
+                StatementReader statements = new StatementReader(source, report);
+                String statement;
+                while ((statement = statements.next()) != null) {
+                    compileStatement(statement, statements.getFirstLine(), triplets, originals, assembly);
+                }
+                if (hasErrors()) {
+                    return finishDiagnostics();
+                }
+
+                TripletCode end = new TripletCode(new SymbolPool());
+                end.add(TripletCode.END, TripletCode.NONE, TripletCode.NONE);
+                TripletGenerator.writeRows(triplets, end, 1, optimizedLines);
+                TripletGenerator.writeRows(originals, end, 1, originalLines);
+            }
+
+            report.write("\n\n--------- Original Triplet ---------\n");
+            report.write(TripletGenerator.TRIPLET_HEADER);
+            copy(originalRows, report);
+            report.write("\n--------- Optimized Triplet ---------\n");
+            tripletFile.copyTo(report);
+
+            // Las inicializaciones van antes del código, pero se conocen al final
+            AssemblyGenerator prologue = new AssemblyGenerator(assemblyFile.writer(), peephole);
+            prologue.initializeVariables(declaredVariables);
+            prologue.flush();
+            copy(assemblyBody, assemblyFile.writer());
+            prologue.finish();
+
+            report.write(TripletGenerator.PEEPHOLE_HEADER);
+            report.write(peephole.getReport());
+
+            tripletFile.commit();
+            optimizationFile.commit();
+            assemblyFile.commit();
+            return finishDiagnostics();
+        } finally {
+            if (originalRows != null) {
+                Files.deleteIfExists(originalRows);
+            }
+            if (assemblyBody != null) {
+                Files.deleteIfExists(assemblyBody);
+            }
+        }
+    }
+
+    private void compileStatement(String statement, int firstLine, Writer triplets, Writer originals,
+            AssemblyGenerator assembly) throws IOException {
+        // Cada sentencia tiene sus propios símbolos; los nombres declarados se comparan por texto
+        SymbolPool symbols = new SymbolPool();
+        TokenStream tokens = Lexer.scan(statement, firstLine, symbols);
+        Program program = Parser.parse(tokens, diagnostics);
+        scope.symbols = symbols;
+        program.accept(new SemanticAnalyzer(scope, (errorType, lexeme, line, args) ->
+            semanticErrors.add(new PendingError(errorType, lexeme, line, args))));
+
+        // Con errores ya no se generan salidas, pero se siguen buscando errores
+        if (hasErrors()) {
+            return;
+        }
+        generator.generateTriplo(program, statement);
+        for (Map.Entry<String, String> variable : generator.getDeclaredVariables().entrySet()) {
+            declaredVariables.putIfAbsent(variable.getKey(), variable.getValue());
+        }
+
+        // La marca de fin de cada sentencia se omite; se escribe una sola al final
+        TripletCode original = generator.getOriginalTriplet();
+        TripletGenerator.writeRows(originals, original, original.size() - 1, originalLines);
+        originalLines += original.size() - 1;
+
+        TripletCode optimized = generator.getTriplet();
+        int size = optimized.size() - 1;
+        TripletGenerator.writeRows(triplets, optimized, size, optimizedLines);
+        assembly.generateFragment(optimized, size, optimizedLines);
+        optimizedLines += size;
+    }
+
+    private boolean hasErrors() {
+        return !diagnostics.isEmpty() || !semanticErrors.isEmpty();
+    }
+
+    /**
+     * Adds the semantic errors after the syntax errors, as a full analysis does
+     */
+    private Diagnostics finishDiagnostics() {
+        for (PendingError error : semanticErrors) {
+            diagnostics.addError(error.errorType, error.lexeme, error.line, error.args);
+        }
+        semanticErrors.clear();
+        return diagnostics;
+    }
+
+    private static Path spoolFile(String output) throws IOException {
+        Path path = Paths.get(output);
+        return Files.createTempFile(path.toAbsolutePath().getParent(), "." + path.getFileName(), ".spool");
+    }
+
+    private static void copy(Path file, Writer writer) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) > 0) {
+                writer.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Declared names of the whole source, seen through the symbols of the current
+     * statement
+     */
+    private final class ChunkScope implements Scope {
+        SymbolPool symbols;
+
+        @Override
+        public String getType(int symbol) {
+            return declaredTypes.get(symbols.name(symbol));
+        }
+
+        @Override
+        public void declare(int symbol, String type) {
+            declaredTypes.put(symbols.name(symbol), type);
+        }
+    }
+
+    /**
+     * A semantic error kept until every syntax error has been reported
+     */
+    private static final class PendingError {
+        final ErrorType errorType;
+        final String lexeme;
+        final int line;
+        final Object[] args;
+
+        PendingError(ErrorType errorType, String lexeme, int line, Object[] args) {
+            this.errorType = errorType;
+            this.lexeme = lexeme;
+            this.line = line;
+            this.args = args;
+        }
+    }
+}
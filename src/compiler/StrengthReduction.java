@@ -0,0 +1,316 @@
+package src.compiler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import src.tokens.SymbolPool;
+
+/**
+ * Reducción de fuerza: cambia multiplicaciones y divisiones por operaciones más
+ * baratas.
+ *
+ * Sobre el triplo, una multiplicación por una constante de una variable de
+ * inducción ({@code T1 = i}, {@code T1 * 4}, donde el ciclo sólo cambia
+ * {@code i} con {@code i = i + c}) pasa a una copia de una variable nueva (TS1,
+ * TS2...). Esa variable vale {@code i * 4} desde el preencabezado del ciclo, y
+ * cada incremento de {@code i} le suma {@code c * 4}. Como las variables TI, las
+ * TS no son temporales.
+ *
+ * Para el ensamblador, los métodos estáticos dicen cómo multiplicar o dividir
+ * por una constante sin MUL ni DIV de 8 bits: con desplazamientos, con sumas de
+ * desplazamientos o multiplicando por un número mágico.
+ */
+public class StrengthReduction {
+    /** Instrucciones de desplazamiento y suma que puede costar una multiplicación */
+    private static final int MAX_CHAIN = 6;
+
+    private int reducedMultiplications;
+    private int inductionVariables;
+
+    /**
+     * Reduce las multiplicaciones de variables de inducción de cada ciclo
+     * @return Triplo nuevo con la misma tabla de símbolos
+     */
+    public TripletCode reduce(TripletCode code) {
+        reducedMultiplications = 0;
+        inductionVariables = 0;
+        int size = code.size();
+        SymbolPool symbols = code.symbols();
+        TripletCode body = new TripletCode(symbols, size);
+        for (int i = 0; i < size; i++) {
+            body.add(code, i);
+        }
+        boolean[] leaders = LoopNest.leaders(code);
+        moveConstantFactors(body, leaders);
+
+        LoopNest loops = new LoopNest(code);
+        if (loops.count == 0) {
+            return body;
+        }
+        boolean[] removed = new boolean[size];
+        TripletCode[] preheaders = new TripletCode[loops.count];
+        TripletCode[] appended = new TripletCode[size];
+        Map<List<Integer>, Integer> reduced = new HashMap<>();   // Variable TS de cada (ciclo, i, constante)
+
+        for (int i = 0; i + 1 < size; i++) {
+            int variable = body.source(i);
+            int factor = body.source(i + 1);
+            if (!body.isCopy(i) || !body.isTemp(body.object(i)) || body.isLiteral(variable) || body.isTemp(variable)
+                    || body.opcode(i + 1) != TripletCode.MUL || body.object(i + 1) != body.object(i)
+                    || leaders[i + 1] || loops.innermost[i] < 0 || !needsMultiply(symbols.name(factor))) {
+                continue;
+            }
+            int loop = outermostInductionLoop(code, loops, leaders, variable, i);
+            if (loop < 0) {
+                continue;
+            }
+            List<Integer> key = Arrays.asList(loop, variable, factor);
+            Integer induction = reduced.get(key);
+            if (induction == null) {
+                induction = createInduction(code, loops, leaders, variable, factor, loop, preheaders, appended);
+                if (induction < 0) {
+                    continue;
+                }
+                reduced.put(key, induction);
+            }
+            body.set(i, TripletCode.COPY, body.object(i), induction);
+            removed[i + 1] = true;
+            reducedMultiplications++;
+        }
+        if (inductionVariables == 0) {
+            return body;
+        }
+        return loops.rebuild(code, body, removed, preheaders, appended);
+    }
+
+    /**
+     * {@code T = k}, {@code T * x} pasa a {@code T = x}, {@code T * k}, para que
+     * la constante quede del lado que el ensamblador puede reducir
+     */
+    private static void moveConstantFactors(TripletCode body, boolean[] leaders) {
+        for (int i = 0; i + 1 < body.size(); i++) {
+            int target = body.object(i);
+            int constant = body.source(i);
+            int other = body.source(i + 1);
+            if (body.isCopy(i) && body.opcode(i + 1) == TripletCode.MUL && !leaders[i + 1]
+                    && body.object(i + 1) == target && other != target && !body.isLiteral(other)
+                    && integerValue(body.symbols().name(constant)) != null) {
+                body.set(i, TripletCode.COPY, target, other);
+                body.set(i + 1, TripletCode.MUL, target, constant);
+            }
+        }
+    }
+
+    /**
+     * Ciclo más externo, entre los que contienen una línea, en el que la variable
+     * es de inducción
+     * @return El ciclo, o -1 si no hay
+     */
+    private static int outermostInductionLoop(TripletCode code, LoopNest loops, boolean[] leaders, int variable,
+            int line) {
+        int best = -1;
+        for (int loop = loops.innermost[line]; loop >= 0; loop = loops.parent[loop]) {
+            if (!isInduction(code, loops, leaders, variable, loop)) {
+                break;
+            }
+            if (loops.valid[loop]) {
+                best = loop;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Indica si el ciclo asigna la variable, y sólo con incrementos constantes
+     */
+    private static boolean isInduction(TripletCode code, LoopNest loops, boolean[] leaders, int variable, int loop) {
+        int at = loops.firstAssignment(variable, loop);
+        int last = loops.lastAssignment(variable);
+        if (at >= last || loops.assignmentLine(at) > loops.end[loop]) {
+            return false;
+        }
+        for (; at < last && loops.assignmentLine(at) <= loops.end[loop]; at++) {
+            if (step(code, leaders, loops.assignmentLine(at)) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Incremento de una asignación {@code T = i}, {@code T + c}, {@code i = T}
+     * con las tres líneas seguidas en un bloque
+     * @param line Línea que asigna la variable
+     * @return El incremento (negativo si resta), o null si la línea no es un incremento
+     */
+    private static Long step(TripletCode code, boolean[] leaders, int line) {
+        if (line < 2 || leaders[line] || leaders[line - 1] || !code.isCopy(line)) {
+            return null;
+        }
+        int variable = code.object(line);
+        int temp = code.source(line);
+        byte opcode = code.opcode(line - 1);
+        if (!code.isTemp(temp) || code.object(line - 1) != temp || !code.isCopy(line - 2)
+                || code.object(line - 2) != temp || code.source(line - 2) != variable
+                || (opcode != TripletCode.ADD && opcode != TripletCode.SUB)) {
+            return null;
+        }
+        Long amount = integerValue(code.symbols().name(code.source(line - 1)));
+        if (amount == null) {
+            return null;
+        }
+        return opcode == TripletCode.ADD ? amount : -amount;
+    }
+
+    /**
+     * Crea la variable TS que vale {@code variable * factor} en todo el ciclo: la
+     * calcula en el preencabezado y la ajusta después de cada incremento
+     * @return La variable, o -1 si algún ajuste no cabe en un entero
+     */
+    private int createInduction(TripletCode code, LoopNest loops, boolean[] leaders, int variable, int factor,
+            int loop, TripletCode[] preheaders, TripletCode[] appended) {
+        SymbolPool symbols = code.symbols();
+        long multiplier = integerValue(symbols.name(factor));
+        int last = loops.lastAssignment(variable);
+        int from = loops.firstAssignment(variable, loop);
+        for (int at = from; at < last && loops.assignmentLine(at) <= loops.end[loop]; at++) {
+            long delta = step(code, leaders, loops.assignmentLine(at)) * multiplier;
+            if (delta <= Integer.MIN_VALUE || delta > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+
+        int induction = symbols.intern("TS" + (inductionVariables + 1));
+        inductionVariables++;
+        if (preheaders[loop] == null) {
+            preheaders[loop] = new TripletCode(symbols, 8);
+        }
+        preheaders[loop].add(TripletCode.COPY, induction, variable);
+        preheaders[loop].add(TripletCode.MUL, induction, factor);
+        for (int at = from; at < last && loops.assignmentLine(at) <= loops.end[loop]; at++) {
+            int line = loops.assignmentLine(at);
+            long delta = step(code, leaders, line) * multiplier;
+            if (appended[line] == null) {
+                appended[line] = new TripletCode(symbols, 2);
+            }
+            appended[line].add(delta < 0 ? TripletCode.SUB : TripletCode.ADD, induction,
+                symbols.intern(String.valueOf(Math.abs(delta))));
+        }
+        return induction;
+    }
+
+    /**
+     * Indica si el ensamblador necesita un MUL para multiplicar por un literal
+     * entero: una potencia de dos o una cadena corta de sumas salen más baratas
+     * que la variable de inducción, que ocupa un registro en todo el ciclo
+     */
+    private static boolean needsMultiply(String text) {
+        Long factor = integerValue(text);
+        if (factor == null || factor == 0 || factor == 1) {
+            return false;
+        }
+        // Fuera del rango de un byte el ensamblador siempre usa MUL
+        return factor < 0 || factor > 255
+            || powerOfTwo(factor.intValue()) < 0 && multiplyChain(factor.intValue()) == null;
+    }
+
+    /**
+     * Valor de un literal entero, o null si el texto no es uno
+     */
+    private static Long integerValue(String text) {
+        try {
+            return (long) Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Exponente de una potencia de dos mayor que uno
+     * @return k tal que {@code value == 2^k}, o -1 si no es potencia de dos
+     */
+    public static int powerOfTwo(int value) {
+        return value > 1 && (value & (value - 1)) == 0 ? Integer.numberOfTrailingZeros(value) : -1;
+    }
+
+    /**
+     * Pasos para multiplicar por una constante con desplazamientos y sumas. Se
+     * parte del valor en un registro y de una copia suya en otro; cada paso es un
+     * {@link AssemblyCode#SHL} de una posición o un {@link AssemblyCode#ADD} o
+     * {@link AssemblyCode#SUB} de la copia. Se usa la escritura binaria del
+     * factor o su forma no adyacente (con dígitos -1), la que dé menos pasos.
+     * @param factor Constante mayor que uno
+     * @return Los pasos, o null si son más que una multiplicación
+     */
+    public static byte[] multiplyChain(int factor) {
+        byte[] binary = chain(factor, false);
+        byte[] signed = chain(factor, true);
+        byte[] best = signed.length < binary.length ? signed : binary;
+        return best.length <= MAX_CHAIN ? best : null;
+    }
+
+    private static byte[] chain(int factor, boolean signedDigits) {
+        // Dígitos del menos significativo al más significativo
+        int[] digits = new int[34];
+        int count = 0;
+        long rest = factor;
+        while (rest != 0) {
+            int digit = 0;
+            if ((rest & 1) != 0) {
+                digit = signedDigits && (rest & 3) == 3 ? -1 : 1;
+            }
+            digits[count++] = digit;
+            rest = (rest - digit) >> 1;
+        }
+        byte[] steps = new byte[2 * count];
+        int length = 0;
+        for (int k = count - 2; k >= 0; k--) {
+            steps[length++] = AssemblyCode.SHL;
+            if (digits[k] != 0) {
+                steps[length++] = digits[k] > 0 ? AssemblyCode.ADD : AssemblyCode.SUB;
+            }
+        }
+        byte[] result = new byte[length];
+        System.arraycopy(steps, 0, result, 0, length);
+        return result;
+    }
+
+    /**
+     * Número mágico para dividir sin signo un valor de 16 bits entre una
+     * constante: el cociente es la parte alta del producto por el número,
+     * desplazada a la derecha. Cuando el número necesita 17 bits, el producto
+     * se hace con los 16 bajos y se corrige con
+     * {@code ((x - alta) / 2 + alta) >> (desplazamiento - 1)}.
+     * @param divisor Constante de 3 a 255 que no es potencia de dos
+     * @return Multiplicador de 16 bits, desplazamiento y 1 si lleva la corrección
+     */
+    public static int[] divisionMagic(int divisor) {
+        int bits = 32 - Integer.numberOfLeadingZeros(divisor - 1);   // Techo del logaritmo
+        for (int shift = 0; shift <= bits; shift++) {
+            long power = 1L << (16 + shift);
+            long multiplier = (power + divisor - 1) / divisor;
+            // Con un error de redondeo de a lo más 2^shift, el cociente es exacto para todo x < 2^16
+            if (multiplier < 1 << 16 && multiplier * divisor - power <= 1L << shift) {
+                return new int[] {(int) multiplier, shift, 0};
+            }
+        }
+        long multiplier = ((1L << (16 + bits)) + divisor - 1) / divisor;
+        return new int[] {(int) (multiplier - (1 << 16)), bits, 1};
+    }
+
+    /**
+     * Multiplicaciones reemplazadas por una variable de inducción en la última reducción
+     */
+    public int getReducedMultiplications() {
+        return reducedMultiplications;
+    }
+
+    /**
+     * Variables de inducción creadas en la última reducción
+     */
+    public int getInductionVariables() {
+        return inductionVariables;
+    }
+}
@@ -0,0 +1,256 @@
+package src.compiler;
+
+import java.util.Arrays;
+
+import src.tokens.SymbolPool;
+
+/**
+ * Triplo guardado en arreglos primitivos paralelos. Cada línea tiene un código
+ * de operación (byte) y dos operandos enteros, el dato objeto y el dato fuente,
+ * que son ids de una {@link SymbolPool}. Los saltos guardan su línea destino en
+ * el lugar de la fuente.
+ *
+ * Las líneas se numeran desde 1 en los saltos y en la tabla impresa; los
+ * métodos de acceso reciben índices desde 0.
+ */
+public class TripletCode {
+    // Copia: objeto = fuente
+    public static final byte COPY = 0;
+
+    // Aritmética acumulada: objeto = objeto operador fuente
+    public static final byte ADD = 1;
+    public static final byte SUB = 2;
+    public static final byte MUL = 3;
+    public static final byte DIV = 4;
+
+    // Comparación entre objeto y fuente; los saltos siguientes usan su resultado
+    public static final byte LESS = 5;
+    public static final byte GREATER = 6;
+    public static final byte LESS_EQUAL = 7;
+    public static final byte GREATER_EQUAL = 8;
+    public static final byte EQUAL = 9;
+    public static final byte NOT_EQUAL = 10;
+
+    // Saltos: la fuente es la línea destino
+    public static final byte JUMP = 11;
+    public static final byte JUMP_TRUE = 12;
+    public static final byte JUMP_FALSE = 13;
+
+    // Marca de fin del programa
+    public static final byte END = 14;
+
+    /** Operando vacío: el objeto de JMP y de la marca de fin */
+    public static final int NONE = -1;
+
+    private static final String[] OPERATORS = {
+        "=", "+", "-", "*", "/", "<", ">", "<=", ">=", "==", "!="
+    };
+
+    private final SymbolPool symbols;
+    private byte[] opcodes;
+    private int[] objects;
+    private int[] sources;
+    private int size;
+
+    public TripletCode(SymbolPool symbols) {
+        this(symbols, 64);
+    }
+
+    public TripletCode(SymbolPool symbols, int capacity) {
+        this.symbols = symbols;
+        capacity = Math.max(capacity, 16);
+        this.opcodes = new byte[capacity];
+        this.objects = new int[capacity];
+        this.sources = new int[capacity];
+    }
+
+    /**
+     * Añade una línea al final
+     * @return Número de la línea añadida (desde 1)
+     */
+    public int add(byte opcode, int object, int source) {
+        if (size == opcodes.length) {
+            int capacity = size + (size >> 1);
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+            sources = Arrays.copyOf(sources, capacity);
+        }
+        opcodes[size] = opcode;
+        objects[size] = object;
+        sources[size] = source;
+        return ++size;
+    }
+
+    /**
+     * Añade una copia de la línea de otro triplo que comparte la misma tabla de símbolos
+     */
+    public int add(TripletCode code, int index) {
+        return add(code.opcodes[index], code.objects[index], code.sources[index]);
+    }
+
+    public void set(int index, byte opcode, int object, int source) {
+        opcodes[index] = opcode;
+        objects[index] = object;
+        sources[index] = source;
+    }
+
+    public void setJumpTarget(int index, int line) {
+        sources[index] = line;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public SymbolPool symbols() {
+        return symbols;
+    }
+
+    public byte opcode(int index) {
+        return opcodes[index];
+    }
+
+    public int object(int index) {
+        return objects[index];
+    }
+
+    public int source(int index) {
+        return sources[index];
+    }
+
+    /**
+     * Línea destino (desde 1) de un salto
+     */
+    public int jumpTarget(int index) {
+        return sources[index];
+    }
+
+    public boolean isJump(int index) {
+        return isJump(opcodes[index]);
+    }
+
+    public boolean isCopy(int index) {
+        return opcodes[index] == COPY;
+    }
+
+    public boolean isArithmetic(int index) {
+        return isArithmetic(opcodes[index]);
+    }
+
+    public boolean isComparison(int index) {
+        return isComparison(opcodes[index]);
+    }
+
+    /**
+     * Copia o aritmética: líneas que asignan un valor a su objeto
+     */
+    public boolean isAssignment(int index) {
+        return opcodes[index] <= DIV;
+    }
+
+    public static boolean isJump(byte opcode) {
+        return opcode >= JUMP && opcode <= JUMP_FALSE;
+    }
+
+    public static boolean isArithmetic(byte opcode) {
+        return opcode >= ADD && opcode <= DIV;
+    }
+
+    public static boolean isComparison(byte opcode) {
+        return opcode >= LESS && opcode <= NOT_EQUAL;
+    }
+
+    /**
+     * Código de operación de un operador aritmético o relacional del lenguaje
+     */
+    public static byte opcodeOf(String operator) {
+        for (int i = 0; i < OPERATORS.length; i++) {
+            if (OPERATORS[i].equals(operator)) {
+                return (byte) i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operator: " + operator);
+    }
+
+    /**
+     * Comparación contraria: la que es verdadera cuando la original es falsa
+     */
+    public static byte negate(byte comparison) {
+        switch (comparison) {
+            case LESS: return GREATER_EQUAL;
+            case GREATER: return LESS_EQUAL;
+            case LESS_EQUAL: return GREATER;
+            case GREATER_EQUAL: return LESS;
+            case EQUAL: return NOT_EQUAL;
+            default: return EQUAL;
+        }
+    }
+
+    public String objectText(int index) {
+        return objects[index] == NONE ? "" : symbols.name(objects[index]);
+    }
+
+    public String sourceText(int index) {
+        switch (opcodes[index]) {
+            case JUMP: return "JMP";
+            case JUMP_TRUE: return "true";
+            case JUMP_FALSE: return "false";
+            case END: return "end";
+            default: return symbols.name(sources[index]);
+        }
+    }
+
+    public String operatorText(int index) {
+        byte opcode = opcodes[index];
+        if (isJump(opcode)) {
+            return String.valueOf(sources[index]);
+        }
+        return opcode == END ? "" : OPERATORS[opcode];
+    }
+
+    /**
+     * Temporal generada por el compilador: T seguido de un dígito
+     */
+    public boolean isTemp(int symbol) {
+        String name = symbols.name(symbol);
+        return name.length() > 1 && name.charAt(0) == 'T' && Character.isDigit(name.charAt(1));
+    }
+
+    /**
+     * Literal numérico o de cadena
+     */
+    public boolean isLiteral(int symbol) {
+        char first = symbols.name(symbol).charAt(0);
+        return Character.isDigit(first) || first == '-' || first == '.' || first == '"';
+    }
+
+    /**
+     * Quita las líneas marcadas y ajusta los destinos de salto; un salto a una
+     * línea eliminada pasa a la siguiente que se conserva
+     * @return Un triplo nuevo con la misma tabla de símbolos
+     */
+    public TripletCode compact(boolean[] removed) {
+        int[] newLines = new int[size];
+        TripletCode kept = new TripletCode(symbols, size);
+        for (int i = 0; i < size; i++) {
+            newLines[i] = kept.size + 1;
+            if (!removed[i]) {
+                kept.add(this, i);
+            }
+        }
+        kept.remapJumps(newLines);
+        return kept;
+    }
+
+    /**
+     * Actualiza los destinos de salto después de mover líneas
+     * @param newLines Nueva posición (desde 1) de cada línea anterior
+     */
+    public void remapJumps(int[] newLines) {
+        for (int i = 0; i < size; i++) {
+            if (isJump(opcodes[i])) {
+                sources[i] = newLines[sources[i] - 1];
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package src.compiler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import src.tokens.SymbolPool;
+
+/**
+ * Binary file of a {@link TripletCode}, which tools can load without parsing the
+ * text table. All numbers are big-endian:
+ *
+ * <pre>
+ * header   int magic 'TRPL', int version, int entries, int symbols
+ * entries  byte opcode, int object, int source     (9 bytes each)
+ * symbols  int length, UTF-8 bytes                 (in id order)
+ * </pre>
+ *
+ * Records have a fixed width, so entry {@code i} starts at byte
+ * {@code 16 + 9 * i}. Operands are symbol ids, {@link TripletCode#NONE} when empty,
+ * and jumps keep their 1-based target line in the source, as in memory.
+ *
+ * Files are read through a memory map: {@link #open(Path)} decodes only the
+ * symbols, and entries are read from the mapped records when accessed.
+ *
+ * <pre>
+ * java src.compiler.TripletFile name.triplet.bin
+ * </pre>
+ * prints the text table of a file.
+ */
+public final class TripletFile {
+    public static final int MAGIC = 0x5452504C;    // "TRPL"
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 9;
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final SymbolPool symbols;
+
+    private TripletFile(MappedByteBuffer buffer, int size, SymbolPool symbols) {
+        this.buffer = buffer;
+        this.size = size;
+        this.symbols = symbols;
+    }
+
+    /**
+     * Writes a triplet atomically to a file
+     */
+    public static void write(TripletCode code, Path path) throws IOException {
+        try (OutputFile file = new OutputFile(path, 0)) {
+            write(code, file.channel());
+            file.commit();
+        }
+    }
+
+    /**
+     * Writes a triplet to the current position of a channel
+     */
+    public static void write(TripletCode code, FileChannel channel) throws IOException {
+        SymbolPool pool = code.symbols();
+        ByteBuffer out = ByteBuffer.allocateDirect(64 * 1024);
+        out.putInt(MAGIC).putInt(VERSION).putInt(code.size()).putInt(pool.size());
+        for (int i = 0; i < code.size(); i++) {
+            if (out.remaining() < RECORD_SIZE) {
+                drain(out, channel);
+            }
+            out.put(code.opcode(i)).putInt(code.object(i)).putInt(code.source(i));
+        }
+        for (int id = 0; id < pool.size(); id++) {
+            byte[] name = pool.name(id).getBytes(StandardCharsets.UTF_8);
+            if (out.remaining() < 4) {
+                drain(out, channel);
+            }
+            out.putInt(name.length);
+            for (int start = 0; start < name.length; ) {
+                if (!out.hasRemaining()) {
+                    drain(out, channel);
+                }
+                int length = Math.min(out.remaining(), name.length - start);
+                out.put(name, start, length);
+                start += length;
+            }
+        }
+        drain(out, channel);
+    }
+
+    private static void drain(ByteBuffer out, FileChannel channel) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Maps a triplet file and decodes its symbols
+     */
+    public static TripletFile open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a triplet file: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a triplet file: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported triplet file version " + buffer.getInt(4) + ": " + path);
+        }
+        int size = buffer.getInt(8);
+        int count = buffer.getInt(12);
+        long symbolsStart = HEADER_SIZE + (long) size * RECORD_SIZE;
+        if (size < 0 || count < 0 || symbolsStart > buffer.limit()) {
+            throw new IOException("Corrupt triplet file: " + path);
+        }
+
+        SymbolPool symbols = new SymbolPool(count);
+        ByteBuffer names = buffer.duplicate();
+        names.position((int) symbolsStart);
+        byte[] bytes = new byte[64];
+        for (int id = 0; id < count; id++) {
+            int length = names.remaining() >= 4 ? names.getInt() : -1;
+            if (length < 0 || length > names.remaining()) {
+                throw new IOException("Corrupt triplet file: " + path);
+            }
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            names.get(bytes, 0, length);
+            if (symbols.intern(new String(bytes, 0, length, StandardCharsets.UTF_8)) != id) {
+                throw new IOException("Corrupt triplet file: " + path);
+            }
+        }
+
+        TripletFile file = new TripletFile(buffer, size, symbols);
+        file.validate(path);
+        return file;
+    }
+
+    /**
+     * Checks that every opcode exists and every operand is a symbol or, for a
+     * jump, a line of the triplet
+     */
+    private void validate(Path path) throws IOException {
+        for (int i = 0; i < size; i++) {
+            byte opcode = opcode(i);
+            int object = object(i);
+            int source = source(i);
+            boolean valid;
+            if (opcode == TripletCode.END) {
+                valid = true;
+            } else if (TripletCode.isJump(opcode)) {
+                valid = isOperand(object, true) && source >= 1 && source <= size + 1;
+            } else {
+                valid = opcode >= TripletCode.COPY && opcode < TripletCode.JUMP
+                    && isOperand(object, false) && isOperand(source, false);
+            }
+            if (!valid) {
+                throw new IOException("Corrupt triplet file at line " + (i + 1) + ": " + path);
+            }
+        }
+    }
+
+    private boolean isOperand(int symbol, boolean optional) {
+        return symbol >= 0 ? symbol < symbols.size() : optional && symbol == TripletCode.NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public SymbolPool symbols() {
+        return symbols;
+    }
+
+    public byte opcode(int index) {
+        return buffer.get(record(index));
+    }
+
+    public int object(int index) {
+        return buffer.getInt(record(index) + 1);
+    }
+
+    public int source(int index) {
+        return buffer.getInt(record(index) + 5);
+    }
+
+    private int record(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Line " + (index + 1) + " of " + size);
+        }
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    /**
+     * Copies the whole triplet into memory
+     */
+    public TripletCode load() {
+        TripletCode code = new TripletCode(symbols, size);
+        for (int i = 0; i < size; i++) {
+            int record = HEADER_SIZE + i * RECORD_SIZE;
+            code.add(buffer.get(record), buffer.getInt(record + 1), buffer.getInt(record + 5));
+        }
+        return code;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java src.compiler.TripletFile <file.triplet.bin>");
+            System.exit(2);
+        }
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        TripletGenerator.writeTable(out, open(Paths.get(args[0])).load());
+        out.flush();
+    }
+}
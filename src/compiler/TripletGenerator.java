@@ -1,28 +1,55 @@
 package src.compiler;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Stack;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+
+import src.parser.Assignment;
+import src.parser.BinaryExpression;
+import src.parser.Comparison;
+import src.parser.Condition;
+import src.parser.Declaration;
+import src.parser.Declarator;
+import src.parser.Expression;
+import src.parser.Identifier;
+import src.parser.Literal;
+import src.parser.LogicalExpression;
+import src.parser.Parser;
+import src.parser.Program;
+import src.parser.Statement;
+import src.parser.WhileStatement;
+import src.tokens.Lexer;
+import src.tokens.SymbolPool;
 
 public class TripletGenerator {
-    private List<TriploEntry> triploEntries;
+    static final String TRIPLET_HEADER = "| Line | Data Object | Data Source | Operator |\n"
+        + "|------|-------------|-------------|----------|\n";
+    static final String PEEPHOLE_HEADER = "\n--------- Peephole Optimization ---------\n";
+    private static final int ROW_WIDTH = 48;       // Caracteres de una línea del triplo con columnas sin desbordar
+    private static final int ROW_BATCH = 8192;     // Caracteres que se acumulan antes de escribir
+
+    private TripletCode triplet;
+    private TripletCode originalTriplet;           // Triplo antes de optimizar, para el reporte
+    private SymbolPool symbols;                    // Nombres y literales, compartidos con el lexer
+    private int[] tempSymbols = new int[8];        // Id de T1, T2... en la tabla de símbolos
     private Stack<Integer> conditionPositions; // Para almacenar posiciones de inicio de condición
-    private Stack<Integer> pendingJumps;      // Para almacenar posiciones de saltos que necesitan actualizarse
     private CodeOptimizer optimizer;
-    private String originalCode;
-    private List<String> optimizedCode;
+    private CharSequence originalCode;
+    private Map<String, String> declaredVariables; // Variables declaradas y su tipo, en orden de declaración
+    private Map<String, String> liveVariables;     // Declaraciones que el ensamblador debe inicializar
+    private int tempVarCount;                      // Contador de temporales de la sentencia actual
+    private int conditionCount;                    // Contador de resultados TR de la condición actual
 
     public TripletGenerator() {
-        this.triploEntries = new ArrayList<>();
         this.conditionPositions = new Stack<>();
-        this.pendingJumps = new Stack<>();
         this.optimizer = new CodeOptimizer();
-        this.optimizedCode = new ArrayList<>();
+        this.declaredVariables = new LinkedHashMap<>();
     }
 
     /**
@@ -30,673 +57,393 @@ public class TripletGenerator {
      * @param code Código fuente a procesar
      */
     public void generateTriplo(String code) {
+        Program program = Parser.parse(Lexer.scan(code), (errorType, lexeme, line, args) -> { });
+        generateTriplo(program, code);
+    }
+
+    /**
+     * Genera el triplo recorriendo el árbol sintáctico ya construido
+     * @param program Árbol sintáctico del código fuente
+     * @param code Código fuente original, para el reporte de optimización
+     */
+    public void generateTriplo(Program program, CharSequence code) {
         // Guardar el código original
         this.originalCode = code;
         
         // Reiniciar variables
-        triploEntries.clear();
+        symbols = program.getSymbols();
+        triplet = new TripletCode(symbols);
+        Arrays.fill(tempSymbols, TripletCode.NONE);
         conditionPositions.clear();
-        pendingJumps.clear();
-        optimizedCode.clear();
+        declaredVariables.clear();
         
-        // Optimizar el código antes de generar el triplo
-        optimizedCode = Arrays.asList(optimizer.optimize(code).split("\n"));
-        
-        // Analizar el código línea por línea
-        for (int i = 0; i < optimizedCode.size(); i++) {
-            String line = optimizedCode.get(i).trim();
-            if (line.isEmpty()) continue;
-            
-            // Omitir las declaraciones de variables sin inicialización
-            if (line.matches("(IntegerType|FloatType|StringType)\\s+.*") && !line.contains("=")) {
-                continue;
-            }
-            
-            // Procesar asignaciones
-            if (line.contains("=") && !isConditional(line)) {
-                line = line.replace(";", ""); // Eliminar punto y coma
-                processAssignment(line);
-            }
-            // Procesar estructuras de control - while
-            else if (line.startsWith("while")) {
-                // Extraer la condición del while
-                String condition = extractCondition(line);
-                
-                // Guardar la posición actual para el JMP de retorno
-                int conditionStartPos = triploEntries.size() + 1;
-                conditionPositions.push(conditionStartPos);
-                
-                // Procesar condición
-                if (hasAndOr(condition)) {
-                    processMixedConditions(condition);
-                } else if (condition.contains("||")) {
-                    String[] parts = condition.split("\\|\\|");
-                    processOrConditions(parts);
-                } else if (condition.contains("&&")) {
-                    String[] parts = condition.split("&&");
-                    processAndConditions(parts);
-                } else {
-                    processSimpleCondition(condition);
-                }
-            }
-            // Procesar cierre de bloques
-            else if (line.equals("}")) {
-                if (!conditionPositions.isEmpty()) {
-                    int conditionStartPos = conditionPositions.pop();
-                    
-                    // Añadir JMP para volver a la evaluación de la condición
-                    triploEntries.add(new TriploEntry("", "JMP", String.valueOf(conditionStartPos)));
-                    
-                    // La posición después del JMP será el final del bloque
-                    int afterJmpPos = triploEntries.size() + 1;
-                    
-                    // Actualizar todos los saltos pendientes del bloque actual para que apunten al final
-                    while (!pendingJumps.isEmpty()) {
-                        int pendingJumpPos = pendingJumps.pop();
-                        TriploEntry entry = triploEntries.get(pendingJumpPos - 1);
-                        // Los saltos en falso deben apuntar después del JMP
-                        entry.operador = String.valueOf(afterJmpPos);
-                    }
-                }
-            }
-        }
+        processStatements(program.getStatements());
         
         // Añadir la marca de fin
-        triploEntries.add(new TriploEntry("", "end", ""));
+        triplet.add(TripletCode.END, TripletCode.NONE, TripletCode.NONE);
+        
+        // Optimizar el triplo; el original se conserva para el reporte
+        originalTriplet = triplet;
+        triplet = optimizer.optimize(originalTriplet);
+        liveVariables = optimizer.liveDeclarations(triplet, declaredVariables);
     }
     
-    private boolean isConditional(String line) {
-        return line.contains("<") || line.contains(">") || 
-               line.contains("==") || line.contains("!=") || 
-               line.contains("<=") || line.contains(">=");
+    private void processStatements(List<Statement> statements) {
+        for (Statement statement : statements) {
+            if (statement instanceof Declaration) {
+                processDeclaration((Declaration) statement);
+            } else if (statement instanceof Assignment) {
+                Assignment assignment = (Assignment) statement;
+                processAssignment(assignment.getTarget().getSymbol(), assignment.getValue());
+            } else if (statement instanceof WhileStatement) {
+                processWhile((WhileStatement) statement);
+            }
+        }
     }
     
-    private String extractCondition(String line) {
-        Pattern pattern = Pattern.compile("\\((.*?)\\)");
-        Matcher matcher = pattern.matcher(line);
-        if (matcher.find()) {
-            return matcher.group(1).trim();
+    private void processDeclaration(Declaration declaration) {
+        for (Declarator declarator : declaration.getDeclarators()) {
+            Identifier name = declarator.getName();
+            declaredVariables.putIfAbsent(name.getName(), declaration.getType());
+            
+            // Las declaraciones sólo generan triplos para las variables inicializadas
+            if (declarator.getInitializer() != null) {
+                processAssignment(name.getSymbol(), declarator.getInitializer());
+            }
         }
-        return "";
     }
     
-    private void processAssignment(String line) {
-        String[] parts = line.split("=", 2);
-        
-        if (parts.length != 2) return;
-        
-        String target = parts[0].trim();
-        String expression = parts[1].trim();
+    private void processAssignment(int target, Expression expression) {
+        tempVarCount = 1;
         
         // Expresión simple (un valor literal o una variable)
-        if (!expression.contains("+") && !expression.contains("-") && 
-            !expression.contains("*") && !expression.contains("/")) {
-            
+        if (expression.isLeaf()) {
             // Crear variable temporal T1 para el valor
-            triploEntries.add(new TriploEntry("T1", expression, "="));
+            int temp = newTemp();
+            triplet.add(TripletCode.COPY, temp, leafSymbol(expression));
             
             // Asignar variable temporal al objetivo
-            triploEntries.add(new TriploEntry(target, "T1", "="));
-            
+            triplet.add(TripletCode.COPY, target, temp);
             return;
         }
         
         // Procesar expresión aritmética respetando la jerarquía de operaciones
-        processArithmeticExpression(target, expression);
+        int result = processArithmeticExpression(expression);
+        
+        // Asignar el resultado final
+        triplet.add(TripletCode.COPY, target, result);
     }
     
     /**
-     * Procesa una expresión aritmética respetando la jerarquía de operaciones
-     * @param target Variable objetivo donde se asignará el resultado
+     * Procesa una expresión aritmética respetando la jerarquía de operaciones.
+     * La jerarquía ya está representada en el árbol, así que basta con recorrerlo.
      * @param expression Expresión aritmética a procesar
+     * @return Símbolo del operando que contiene el resultado: el propio valor para
+     *         literales y variables, o la variable temporal donde se acumuló
      */
-    private void processArithmeticExpression(String target, String expression) {
-        // Primero procesamos multiplicación y división
-        // Buscar términos separados por + o -
-        String[] sumTerms = expression.split("(?=[+-])");
-        
-        // Contador para variables temporales
-        int tempVarCount = 1;
-        String[] processedTerms = new String[sumTerms.length];
-        
-        // Procesar cada término (puede contener * o /)
-        for (int i = 0; i < sumTerms.length; i++) {
-            String term = sumTerms[i].trim();
-            
-            // Si el término comienza con + o -, extraerlo
-            char operator = '+';
-            if (term.startsWith("+") || term.startsWith("-")) {
-                operator = term.charAt(0);
-                term = term.substring(1).trim();
-            }
-            
-            // Verificar si el término contiene multiplicación o división
-            if (term.contains("*") || term.contains("/")) {
-                // Determinar el operador
-                String mulOperator = term.contains("*") ? "*" : "/";
-                String[] factors = term.split("\\" + mulOperator);
-                
-                if (factors.length == 2) {
-                    String left = factors[0].trim();
-                    String right = factors[1].trim();
-                    
-                    // Generar triplo para la multiplicación/división
-                    String resultVar = "T" + tempVarCount++;
-                    triploEntries.add(new TriploEntry(resultVar, left, "="));
-                    triploEntries.add(new TriploEntry(resultVar, right, mulOperator));
-                    
-                    // Guardar la variable temporal como resultado de este término
-                    processedTerms[i] = (operator == '-' ? "-" : "") + resultVar;
-                } else {
-                    // Si no se puede dividir correctamente, usar el término original
-                    processedTerms[i] = (operator == '-' ? "-" : "") + term;
-                }
-            } else {
-                // Término simple, guardar como está
-                processedTerms[i] = (operator == '-' ? "-" : "") + term;
-            }
+    private int processArithmeticExpression(Expression expression) {
+        if (expression.isLeaf()) {
+            return leafSymbol(expression);
         }
         
-        // Ahora procesamos las sumas y restas
-        if (processedTerms.length == 1) {
-            // Si solo hay un término después de procesar * y /, asignarlo directamente
-            String term = processedTerms[0];
-            if (term.startsWith("-")) {
-                // Manejar el caso de negativo
-                triploEntries.add(new TriploEntry("T" + tempVarCount, "0", "="));
-                triploEntries.add(new TriploEntry("T" + tempVarCount, term.substring(1), "-"));
-                triploEntries.add(new TriploEntry(target, "T" + tempVarCount, "="));
-            } else {
-                // Asignar directamente si no es negativo
-                if (term.startsWith("+")) {
-                    term = term.substring(1);
-                }
-                triploEntries.add(new TriploEntry("T" + tempVarCount, term, "="));
-                triploEntries.add(new TriploEntry(target, "T" + tempVarCount, "="));
-            }
+        BinaryExpression binary = (BinaryExpression) expression;
+        int resultVar;
+        int right;
+        if (binary.getLeft().isLeaf()) {
+            // El operando derecho compuesto se evalúa primero en su propia temporal
+            right = processArithmeticExpression(binary.getRight());
+            resultVar = newTemp();
+            triplet.add(TripletCode.COPY, resultVar, leafSymbol(binary.getLeft()));
         } else {
-            // Procesar múltiples términos con sumas y restas
-            String resultVar = "T" + tempVarCount++;
-            
-            // El primer término
-            String firstTerm = processedTerms[0];
-            if (firstTerm.startsWith("-")) {
-                // Si el primer término es negativo, comenzar con 0 y restar
-                triploEntries.add(new TriploEntry(resultVar, "0", "="));
-                triploEntries.add(new TriploEntry(resultVar, firstTerm.substring(1), "-"));
-            } else {
-                // Si es positivo, asignar directamente
-                if (firstTerm.startsWith("+")) {
-                    firstTerm = firstTerm.substring(1);
-                }
-                triploEntries.add(new TriploEntry(resultVar, firstTerm, "="));
-            }
-            
-            // Procesar términos restantes
-            for (int i = 1; i < processedTerms.length; i++) {
-                String term = processedTerms[i];
-                char operator = '+';
-                
-                if (term.startsWith("-")) {
-                    operator = '-';
-                    term = term.substring(1);
-                } else if (term.startsWith("+")) {
-                    term = term.substring(1);
-                }
-                
-                triploEntries.add(new TriploEntry(resultVar, term, String.valueOf(operator)));
-            }
-            
-            // Asignar el resultado final
-            triploEntries.add(new TriploEntry(target, resultVar, "="));
+            resultVar = processArithmeticExpression(binary.getLeft());
+            right = processArithmeticExpression(binary.getRight());
         }
+        
+        triplet.add(TripletCode.opcodeOf(binary.getOperator()), resultVar, right);
+        return resultVar;
     }
     
-    private void processSimpleCondition(String condition) {
-        // Determinar el operador relacional
-        String operator = "";
-        String[] operands = null;
-        
-        if (condition.contains("!=")) {
-            operator = "!=";
-            operands = condition.split("!=");
-        } else if (condition.contains("==")) {
-            operator = "==";
-            operands = condition.split("==");
-        } else if (condition.contains("<=")) {
-            operator = "<=";
-            operands = condition.split("<=");
-        } else if (condition.contains(">=")) {
-            operator = ">=";
-            operands = condition.split(">=");
-        } else if (condition.contains("<")) {
-            operator = "<";
-            operands = condition.split("<");
-        } else if (condition.contains(">")) {
-            operator = ">";
-            operands = condition.split(">");
-        }
+    private void processWhile(WhileStatement whileStatement) {
+        // Guardar la posición actual para el JMP de retorno
+        int conditionStartPos = triplet.size() + 1;
+        conditionPositions.push(conditionStartPos);
         
-        if (operator.isEmpty() || operands == null || operands.length != 2) return;
+        // Procesar condición
+        tempVarCount = 1;
+        conditionCount = 1;
+        JumpLists jumps = processCondition(whileStatement.getCondition());
         
-        // Procesar operandos
-        String left = operands[0].trim();
-        String right = operands[1].trim();
+        // Los saltos en verdadero entran al cuerpo del ciclo
+        backpatch(jumps.trueJumps, triplet.size() + 1);
         
-        // Generar el triplo para cargar valores
-        triploEntries.add(new TriploEntry("T1", right, "="));
-        triploEntries.add(new TriploEntry("T2", left, "="));
-        triploEntries.add(new TriploEntry("T2", "T1", operator));
-        
-        // Calcular posición del cuerpo del bloque (luego del salto condicional)
-        int bodyStartPos = triploEntries.size() + 3;
+        processStatements(whileStatement.getBody());
         
-        // Añadir los saltos condicionales
-        triploEntries.add(new TriploEntry("TR1", "true", String.valueOf(bodyStartPos)));
+        // Añadir JMP para volver a la evaluación de la condición
+        triplet.add(TripletCode.JUMP, TripletCode.NONE, conditionPositions.pop());
         
-        // Registro del salto en falso para actualizar cuando se cierre el bloque
-        int falseJumpPos = triploEntries.size() + 1;
-        triploEntries.add(new TriploEntry("TR1", "false", "?"));
-        pendingJumps.push(falseJumpPos);
+        // Los saltos en falso deben apuntar después del JMP
+        backpatch(jumps.falseJumps, triplet.size() + 1);
     }
     
-    private void processOrConditions(String[] conditions) {
-        // Para OR: si cualquiera es verdadera, se ejecuta el cuerpo
-        
-        // Procesar primera condición
-        String firstCondition = conditions[0].trim();
-        
-        // Analizar el tipo de operador
-        String operator = "";
-        String[] operands = null;
-        
-        if (firstCondition.contains(">")) {
-            operator = ">";
-            operands = firstCondition.split(">");
-        } else if (firstCondition.contains("<")) {
-            operator = "<";
-            operands = firstCondition.split("<");
-        } else if (firstCondition.contains("!=")) {
-            operator = "!=";
-            operands = firstCondition.split("!=");
-        } else if (firstCondition.contains("==")) {
-            operator = "==";
-            operands = firstCondition.split("==");
+    /**
+     * Genera los triplos de una condición con evaluación en cortocircuito
+     * @return Saltos en verdadero y en falso cuyo destino aún no se conoce
+     */
+    private JumpLists processCondition(Condition condition) {
+        if (condition instanceof Comparison) {
+            return processComparison((Comparison) condition);
         }
         
-        if (operator.isEmpty() || operands == null || operands.length != 2) return;
-        
-        // Evaluar primera condición
-        String left = operands[0].trim();
-        String right = operands[1].trim();
-        
-        triploEntries.add(new TriploEntry("T1", right, "="));
-        triploEntries.add(new TriploEntry("T2", left, "="));
-        triploEntries.add(new TriploEntry("T2", "T1", operator));
-        
-        // Si la primera condición es verdadera, saltamos al cuerpo
-        int bodyStartPos = triploEntries.size() + 8; // Posición donde comenzará el cuerpo
-        triploEntries.add(new TriploEntry("TR1", "true", String.valueOf(bodyStartPos)));
-        
-        // Si es falsa, verificamos la segunda condición
-        triploEntries.add(new TriploEntry("TR1", "false", String.valueOf(triploEntries.size() + 2)));
-        
-        // Evaluar segunda condición
-        String secondCondition = conditions[1].trim();
-        
-        operator = "";
-        operands = null;
-        
-        if (secondCondition.contains("<")) {
-            operator = "<";
-            operands = secondCondition.split("<");
-        } else if (secondCondition.contains(">")) {
-            operator = ">";
-            operands = secondCondition.split(">");
-        } else if (secondCondition.contains("!=")) {
-            operator = "!=";
-            operands = secondCondition.split("!=");
-        } else if (secondCondition.contains("==")) {
-            operator = "==";
-            operands = secondCondition.split("==");
+        LogicalExpression logical = (LogicalExpression) condition;
+        JumpLists left = processCondition(logical.getLeft());
+        if (logical.isAnd()) {
+            // AND: si la izquierda es verdadera se evalúa la derecha, si es falsa se sale
+            backpatch(left.trueJumps, triplet.size() + 1);
+            JumpLists right = processCondition(logical.getRight());
+            right.falseJumps.addAll(left.falseJumps);
+            return right;
         }
         
-        if (!operator.isEmpty() && operands != null && operands.length == 2) {
-            left = operands[0].trim();
-            right = operands[1].trim();
-            
-            triploEntries.add(new TriploEntry("T3", right, "="));
-            triploEntries.add(new TriploEntry("T4", left, "="));
-            triploEntries.add(new TriploEntry("T4", "T3", operator));
-            
-            // Añadir saltos para la segunda condición
-            triploEntries.add(new TriploEntry("TR1", "true", String.valueOf(bodyStartPos)));
-            
-            // Si la segunda condición también es falsa, saltar fuera del bloque
-            // Guardamos la posición para actualizar cuando se cierre el bloque
-            int falseJumpPos = triploEntries.size() + 1;
-            triploEntries.add(new TriploEntry("TR1", "false", String.valueOf(falseJumpPos + 1)));
-            pendingJumps.push(falseJumpPos);
+        // OR: si la izquierda es verdadera se entra al cuerpo, si es falsa se evalúa la derecha
+        backpatch(left.falseJumps, triplet.size() + 1);
+        JumpLists right = processCondition(logical.getRight());
+        right.trueJumps.addAll(left.trueJumps);
+        return right;
+    }
+    
+    private JumpLists processComparison(Comparison comparison) {
+        // Generar el triplo para cargar valores
+        int right = loadOperand(comparison.getRight());
+        int left = loadOperand(comparison.getLeft());
+        triplet.add(TripletCode.opcodeOf(comparison.getOperator()), left, right);
+        
+        // Añadir los saltos condicionales; su destino se completa con backpatch
+        int resultVar = symbols.intern("TR" + conditionCount++);
+        JumpLists jumps = new JumpLists();
+        jumps.trueJumps.add(triplet.add(TripletCode.JUMP_TRUE, resultVar, 0));
+        jumps.falseJumps.add(triplet.add(TripletCode.JUMP_FALSE, resultVar, 0));
+        return jumps;
+    }
+    
+    /**
+     * Carga un operando de una comparación en una variable temporal
+     */
+    private int loadOperand(Expression expression) {
+        if (!expression.isLeaf()) {
+            return processArithmeticExpression(expression);
         }
+        int temp = newTemp();
+        triplet.add(TripletCode.COPY, temp, leafSymbol(expression));
+        return temp;
     }
     
-    private void processAndConditions(String[] conditions) {
-        // For AND: both conditions must be true to execute the body
-        
-        // Process first condition
-        String firstCondition = conditions[0].trim();
-        
-        // Analizar el tipo de operador
-        String operator = "";
-        String[] operands = null;
-        
-        if (firstCondition.contains(">")) {
-            operator = ">";
-            operands = firstCondition.split(">");
-        } else if (firstCondition.contains("<")) {
-            operator = "<";
-            operands = firstCondition.split("<");
-        } else if (firstCondition.contains("!=")) {
-            operator = "!=";
-            operands = firstCondition.split("!=");
-        } else if (firstCondition.contains("==")) {
-            operator = "==";
-            operands = firstCondition.split("==");
+    private void backpatch(List<Integer> jumpPositions, int target) {
+        for (int position : jumpPositions) {
+            triplet.setJumpTarget(position - 1, target);
         }
-        
-        if (operator.isEmpty() || operands == null || operands.length != 2) return;
-        
-        // Evaluar primera condición
-        String left = operands[0].trim();
-        String right = operands[1].trim();
-        
-        triploEntries.add(new TriploEntry("T1", right, "="));
-        triploEntries.add(new TriploEntry("T2", left, "="));
-        triploEntries.add(new TriploEntry("T2", "T1", operator));
-        
-        // If the first condition is false, skip the entire block
-        int falseJumpOutPos = triploEntries.size() + 1;
-        triploEntries.add(new TriploEntry("TR1", "true", String.valueOf(falseJumpOutPos + 2)));
-        triploEntries.add(new TriploEntry("TR1", "false", "?")); // Se actualizará cuando se cierre el bloque
-        pendingJumps.push(falseJumpOutPos + 1);
-        
-        // Evaluar segunda condición
-        String secondCondition = conditions[1].trim();
-        
-        operator = "";
-        operands = null;
-        
-        if (secondCondition.contains("<")) {
-            operator = "<";
-            operands = secondCondition.split("<");
-        } else if (secondCondition.contains(">")) {
-            operator = ">";
-            operands = secondCondition.split(">");
-        } else if (secondCondition.contains("!=")) {
-            operator = "!=";
-            operands = secondCondition.split("!=");
-        } else if (secondCondition.contains("==")) {
-            operator = "==";
-            operands = secondCondition.split("==");
+        jumpPositions.clear();
+    }
+    
+    private int newTemp() {
+        int number = tempVarCount++;
+        if (number >= tempSymbols.length) {
+            int length = tempSymbols.length;
+            tempSymbols = Arrays.copyOf(tempSymbols, number * 2);
+            Arrays.fill(tempSymbols, length, tempSymbols.length, TripletCode.NONE);
         }
-        
-        int secondFalseJumpPos = -1;
-        
-        if (!operator.isEmpty() && operands != null && operands.length == 2) {
-            left = operands[0].trim();
-            right = operands[1].trim();
-            
-            triploEntries.add(new TriploEntry("T3", right, "="));
-            triploEntries.add(new TriploEntry("T4", left, "="));
-            triploEntries.add(new TriploEntry("T4", "T3", operator));
-            
-            // Calcular posición del cuerpo del bloque
-            int bodyStartPos = triploEntries.size() + 3;
-            
-            // Añadir saltos para la segunda condición
-            triploEntries.add(new TriploEntry("TR1", "true", String.valueOf(bodyStartPos)));
-            
-            // Si la segunda condición es falsa, saltar fuera del bloque
-            secondFalseJumpPos = triploEntries.size() + 1;
-            triploEntries.add(new TriploEntry("TR1", "false", "?")); // Se actualizará cuando se cierre el bloque
-            pendingJumps.push(secondFalseJumpPos);
+        if (tempSymbols[number] == TripletCode.NONE) {
+            tempSymbols[number] = symbols.intern("T" + number);
         }
-        
-        // IMPORTANT: Put this jump at the front of the stack so it's processed last
-        // This ensures the false jump from the outer AND condition is processed correctly
-        if (secondFalseJumpPos > 0) {
-            // Move this jump to the front of the pendingJumps stack
-            Stack<Integer> tempStack = new Stack<>();
-            tempStack.push(secondFalseJumpPos);
-            
-            // Copy all other pending jumps
-            while (!pendingJumps.isEmpty()) {
-                tempStack.push(pendingJumps.pop());
-            }
-            
-            // Restore in correct order
-            while (!tempStack.isEmpty()) {
-                pendingJumps.push(tempStack.pop());
-            }
+        return tempSymbols[number];
+    }
+    
+    private static int leafSymbol(Expression expression) {
+        if (expression instanceof Identifier) {
+            return ((Identifier) expression).getSymbol();
         }
+        return ((Literal) expression).getSymbol();
     }
     
-    private boolean hasAndOr(String condition) {
-        return condition.contains("&&") && condition.contains("||");
+    /**
+     * Triplo optimizado
+     */
+    public TripletCode getTriplet() {
+        return triplet;
     }
     
-    private void processMixedConditions(String condition) {
-        // For complex conditions, we need to handle multiple jumps correctly
-        // First, handle OR conditions which have lower precedence
-
-        // In a mixed condition like "A > 5 || A < 15 && A < 1"
-        // We should first evaluate "A < 15 && A < 1" as a unit, then OR it with "A > 5"
-        String[] orParts = condition.split("\\|\\|");
-        
-        // Process first OR part (left side of ||)
-        String firstPart = orParts[0].trim();
-        
-        // Variables for tracking jump positions
-        int firstPartTrueJumpPos = -1;
-        int bodyStartPos = -1;
-        
-        // Process first condition (simple condition)
-        if (!firstPart.contains("&&")) {
-            firstPartTrueJumpPos = processConditionPart(firstPart, true, false);
-        } else {
-            String[] andParts = firstPart.split("&&");
-            firstPartTrueJumpPos = processAndSubcondition(andParts);
-        }
-        
-        // Process second OR part (right side of ||)
-        String secondPart = orParts[1].trim();
-        
-        // If the second part contains AND, process it as a compound condition
-        if (secondPart.contains("&&")) {
-            String[] andParts = secondPart.split("&&");
-            // The body start position will be after all condition evaluations
-            bodyStartPos = processAndSubcondition(andParts);
-        } else {
-            // Process as simple condition
-            bodyStartPos = processConditionPart(secondPart, false, true);
-        }
-        
-        // Make sure we have valid jump positions
-        if (firstPartTrueJumpPos > 0) {
-            // If first part is true, jump to body
-            TriploEntry entry = triploEntries.get(firstPartTrueJumpPos - 1);
-            entry.operador = String.valueOf(bodyStartPos);
-        }
-        
-        // Keep track of the last pending jump which should jump outside the block
-        // when ALL conditions are false
-        int lastFalseJumpPos = pendingJumps.peek();
-        pendingJumps.push(lastFalseJumpPos);
+    /**
+     * Triplo antes de la optimización
+     */
+    public TripletCode getOriginalTriplet() {
+        return originalTriplet;
     }
     
-    private int processAndSubcondition(String[] conditions) {
-        // Procesar primera condición
-        String firstCondition = conditions[0].trim();
-        processConditionPart(firstCondition, false, false);
-        
-        // Procesar segunda condición
-        String secondCondition = conditions[1].trim();
-        return processConditionPart(secondCondition, false, true);
+    /**
+     * Variables declaradas en el programa y su tipo
+     */
+    public Map<String, String> getDeclaredVariables() {
+        return declaredVariables;
     }
     
-    private int processConditionPart(String condition, boolean isFirstOrPart, boolean isLastPart) {
-        // Determinar el operador relacional
-        String operator = "";
-        String[] operands = null;
-        
-        if (condition.contains("!=")) {
-            operator = "!=";
-            operands = condition.split("!=");
-        } else if (condition.contains("==")) {
-            operator = "==";
-            operands = condition.split("==");
-        } else if (condition.contains("<=")) {
-            operator = "<=";
-            operands = condition.split("<=");
-        } else if (condition.contains(">=")) {
-            operator = ">=";
-            operands = condition.split(">=");
-        } else if (condition.contains("<")) {
-            operator = "<";
-            operands = condition.split("<");
-        } else if (condition.contains(">")) {
-            operator = ">";
-            operands = condition.split(">");
-        }
-        
-        if (operator.isEmpty() || operands == null || operands.length != 2) return -1;
-        
-        // Procesar operandos
-        String left = operands[0].trim();
-        String right = operands[1].trim();
-        
-        // Variables temporales diferentes según la posición
-        String tempVar1 = isFirstOrPart ? "T1" : (isLastPart ? "T5" : "T3");
-        String tempVar2 = isFirstOrPart ? "T2" : (isLastPart ? "T6" : "T4");
-        String resultVar = isFirstOrPart ? "TR1" : (isLastPart ? "TR3" : "TR2");
-        
-        // Generar triplo para valores
-        triploEntries.add(new TriploEntry(tempVar1, right, "="));
-        triploEntries.add(new TriploEntry(tempVar2, left, "="));
-        triploEntries.add(new TriploEntry(tempVar2, tempVar1, operator));
-        
-        // Calcular posición del cuerpo o siguiente condición
-        int nextPos = triploEntries.size() + 3;
-        
-        if (isFirstOrPart) {
-            // Si es la primera parte del OR y es verdadera, saltar al cuerpo
-            int trueJumpPos = triploEntries.size() + 1;
-            triploEntries.add(new TriploEntry(resultVar, "true", String.valueOf(nextPos + 1))); // Actualizado para saltar correctamente
-            
-            // Si es falsa, evaluar siguiente condición
-            triploEntries.add(new TriploEntry(resultVar, "false", String.valueOf(nextPos)));
+    /**
+     * Variables declaradas cuyo valor inicial puede leerse en el triplo optimizado.
+     * Quedan fuera las que no se usan y las que se asignan antes de leerse.
+     */
+    public Map<String, String> getLiveVariables() {
+        return liveVariables;
+    }
+    
+    /**
+     * Saltos pendientes de una condición, identificados por su línea en el triplo
+     */
+    private static class JumpLists {
+        final List<Integer> trueJumps = new ArrayList<>();
+        final List<Integer> falseJumps = new ArrayList<>();
+    }
+    
+    /**
+     * Guarda el triplo, el reporte de optimización y el ensamblador en las rutas indicadas.
+     * Los tres archivos se reemplazan juntos al final; si algo falla quedan los anteriores.
+     * @param tripletFilePath Archivo del triplo
+     * @param optimizationFilePath Archivo con el código original y el optimizado
+     * @param assemblyFilePath Archivo del código ensamblador
+     */
+    public void saveToFile(String tripletFilePath, String optimizationFilePath, String assemblyFilePath)
+            throws IOException {
+        long tripletLength = TRIPLET_HEADER.length() + (long) triplet.size() * ROW_WIDTH;
+        long originalLength = TRIPLET_HEADER.length() + (long) originalTriplet.size() * ROW_WIDTH;
+        try (OutputFile tripletFile = new OutputFile(Paths.get(tripletFilePath), tripletLength);
+                OutputFile optimizationFile = new OutputFile(Paths.get(optimizationFilePath),
+                    originalCode.length() + originalLength + tripletLength);
+                OutputFile assemblyFile = new OutputFile(Paths.get(assemblyFilePath), tripletLength)) {
+            // Guardar el triplo en su archivo
+            writeTable(tripletFile.writer(), triplet);
             
-            return trueJumpPos;
-        } else if (isLastPart) {
-            // Si es la última parte y es verdadera, ejecutar cuerpo
-            int bodyStartPos = triploEntries.size() + 3;
-            triploEntries.add(new TriploEntry(resultVar, "true", String.valueOf(bodyStartPos)));
+            // Guardar el código original y el triplo antes y después de optimizar
+            Writer writer = optimizationFile.writer();
+            writer.write("--------- Original Code ---------\n");
+            writeText(writer, originalCode);
             
-            // Si es falsa, saltar fuera del bloque
-            int falseJumpPos = triploEntries.size() + 1;
-            triploEntries.add(new TriploEntry(resultVar, "false", "?"));
-            pendingJumps.push(falseJumpPos);
+            writer.write("\n\n--------- Original Triplet ---------\n");
+            writeTable(writer, originalTriplet);
             
-            return bodyStartPos;
-        } else {
-            // Si no es ni primera ni última, es una condición intermedia
-            // Si es verdadera, continuar con la siguiente
-            triploEntries.add(new TriploEntry(resultVar, "true", String.valueOf(nextPos)));
+            // Guardar el triplo optimizado
+            writer.write("\n--------- Optimized Triplet ---------\n");
+            writeTable(writer, triplet);
             
-            // Si es falsa, saltar fuera del bloque
-            int falseJumpPos = triploEntries.size() + 1;
-            triploEntries.add(new TriploEntry(resultVar, "false", "?"));
-            pendingJumps.push(falseJumpPos);
+            // Generar el ensamblador directamente sobre su archivo
+            AssemblyGenerator assembly = new AssemblyGenerator(assemblyFile.writer());
+            assembly.writeAssembly(triplet, liveVariables);
+
+            // Cuentas de la optimización de mirilla sobre el ensamblador
+            writer.write(PEEPHOLE_HEADER);
+            writer.write(assembly.getPeepholeOptimizer().getReport());
             
-            return -1;
+            tripletFile.commit();
+            optimizationFile.commit();
+            assemblyFile.commit();
         }
     }
     
     /**
-     * Genera un archivo de texto con el código original, optimizado y el triplo generado
-     * @param tripletFilePath Ruta del archivo para el triplo
-     * @throws IOException Si hay un error al escribir el archivo
+     * Escribe un texto por partes, sin convertirlo antes en un solo String
      */
-    public void saveToFile(String tripletFilePath) throws IOException {
-        // Guardar el triplo en su archivo
-        try (FileWriter writer = new FileWriter(tripletFilePath)) {
-            writer.write("| Line | Data Object | Data Source | Operator |\n");
-            writer.write("|------|-------------|-------------|----------|\n");
-            
-            int rowNumber = 1;
-            for (TriploEntry entry : triploEntries) {
-                writer.write(String.format("| %-4d | %-11s | %-11s | %-8s |\n", 
-                    rowNumber++, 
-                    entry.datoObjeto, 
-                    entry.datoFuente, 
-                    entry.operador));
-            }
+    private static void writeText(Writer writer, CharSequence text) throws IOException {
+        if (text instanceof String) {
+            writer.write((String) text);
+            return;
         }
-        
-        // Guardar el código original y optimizado en un archivo separado
-        try (FileWriter writer = new FileWriter("codebase_optimization.txt")) {
-            // Guardar el código original
-            writer.write("--------- Original Code ---------\n");
-            writer.write(originalCode);
-            
-            // Guardar el código optimizado
-            writer.write("\n\n--------- Optimized Code ---------\n");
-            for (String line : optimizedCode) {
-                // Eliminar punto y coma extra al final de la línea
-                line = line.replaceAll(";+$", ";");
-                writer.write(line + "\n");
+        char[] buffer = new char[8192];
+        for (int start = 0; start < text.length(); start += buffer.length) {
+            int end = Math.min(start + buffer.length, text.length());
+            for (int i = start; i < end; i++) {
+                buffer[i - start] = text.charAt(i);
             }
+            writer.write(buffer, 0, end - start);
         }
-        
-        // Generar y guardar el código en ensamblador
-        AssemblyGenerator assemblyGen = new AssemblyGenerator();
-        assemblyGen.generateAssembly(optimizedCode);
-        assemblyGen.saveToFile("assembly.txt");
     }
-    
+
     /**
      * Obtiene el triplo como un string formateado
      * @return String con el triplo formateado
      */
     public String getTriploAsString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("| Line | Data Object | Data Source | Operator |\n");
-        sb.append("|------|-------------|-------------|----------|\n");
-        
-        int rowNumber = 1;
-        for (TriploEntry entry : triploEntries) {
-            sb.append(String.format("| %-4d | %-11s | %-11s | %-8s |\n", 
-                rowNumber++, 
-                entry.datoObjeto, 
-                entry.datoFuente, 
-                entry.operador));
+        return formatTriplo(triplet);
+    }
+    
+    private static String formatTriplo(TripletCode code) {
+        StringBuilder sb = new StringBuilder(TRIPLET_HEADER.length() + code.size() * ROW_WIDTH);
+        sb.append(TRIPLET_HEADER);
+        for (int i = 0; i < code.size(); i++) {
+            appendRow(sb, code, i, 0);
         }
-        
         return sb.toString();
     }
     
     /**
-     * Clase interna para representar una entrada en el triplo
+     * Escribe la tabla completa de un triplo, con su encabezado
      */
-    private class TriploEntry {
-        String datoObjeto;
-        String datoFuente;
-        String operador;
-        
-        public TriploEntry(String datoObjeto, String datoFuente, String operador) {
-            this.datoObjeto = datoObjeto;
-            this.datoFuente = datoFuente;
-            this.operador = operador;
+    static void writeTable(Writer writer, TripletCode code) throws IOException {
+        writer.write(TRIPLET_HEADER);
+        writeRows(writer, code, code.size(), 0);
+    }
+    
+    /**
+     * Escribe las primeras líneas de un triplo formateadas, con los números de línea
+     * y los destinos de salto desplazados
+     * @param rows Número de líneas a escribir
+     * @param lineOffset Líneas que preceden al triplo en el archivo
+     */
+    static void writeRows(Writer writer, TripletCode code, int rows, int lineOffset) throws IOException {
+        // Las líneas se forman por lotes en un búfer que se reutiliza
+        StringBuilder batch = new StringBuilder(ROW_BATCH + ROW_WIDTH * 2);
+        char[] chars = new char[batch.capacity()];
+        for (int i = 0; i < rows; i++) {
+            appendRow(batch, code, i, lineOffset);
+            if (batch.length() >= ROW_BATCH || i == rows - 1) {
+                if (chars.length < batch.length()) {
+                    chars = new char[batch.length()];
+                }
+                batch.getChars(0, batch.length(), chars, 0);
+                writer.write(chars, 0, batch.length());
+                batch.setLength(0);
+            }
+        }
+    }
+    
+    /**
+     * Añade una línea con el formato "| %-4d | %-11s | %-11s | %-8s |", sin String.format
+     */
+    private static void appendRow(StringBuilder sb, TripletCode code, int index, int lineOffset) {
+        sb.append("| ");
+        int start = sb.length();
+        sb.append(index + 1 + lineOffset);
+        pad(sb, start, 4);
+        sb.append(" | ");
+        start = sb.length();
+        sb.append(code.objectText(index));
+        pad(sb, start, 11);
+        sb.append(" | ");
+        start = sb.length();
+        sb.append(code.sourceText(index));
+        pad(sb, start, 11);
+        sb.append(" | ");
+        start = sb.length();
+        if (code.isJump(index)) {
+            sb.append(code.jumpTarget(index) + lineOffset);
+        } else {
+            sb.append(code.operatorText(index));
+        }
+        pad(sb, start, 8);
+        sb.append(" |\n");
+    }
+    
+    /**
+     * Completa con espacios a la derecha lo añadido desde start hasta el ancho dado
+     */
+    private static void pad(StringBuilder sb, int start, int width) {
+        for (int i = sb.length() - start; i < width; i++) {
+            sb.append(' ');
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,8 @@
+package src.errors;
+
+/**
+ * Receives the errors found while compiling a program
+ */
+public interface ErrorListener {
+    void addError(ErrorType errorType, String lexeme, int line, Object... args);
+}
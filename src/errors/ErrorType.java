@@ -13,6 +13,7 @@ public class ErrorType {
         put("UNDECLARED_VARIABLE", "Variable must be declared before use");
         put("TYPE_MISMATCH", "Cannot assign %s value to %s variable");
         put("SYNTAX_ERROR", "Missing value after assignment operator");
+        put("UNEXPECTED_TOKEN", "Unexpected %s, expected %s");
     }};
 
     public static final ErrorType INVALID_TYPE = new ErrorType("Invalid_Type", "INVALID_TYPE");
@@ -21,6 +22,7 @@ public class ErrorType {
     public static final ErrorType UNDECLARED_VARIABLE = new ErrorType("Undeclared_Variable", "UNDECLARED_VARIABLE");
     public static final ErrorType TYPE_MISMATCH = new ErrorType("Type_Mismatch", "TYPE_MISMATCH");
     public static final ErrorType SYNTAX_ERROR = new ErrorType("Syntax_Error", "SYNTAX_ERROR");
+    public static final ErrorType UNEXPECTED_TOKEN = new ErrorType("Unexpected_Token", "UNEXPECTED_TOKEN");
 
     private ErrorType(String token, String messageKey) {
         this.token = token;
@@ -0,0 +1,28 @@
+package src.parser;
+
+/**
+ * Assignment of an expression to a variable, e.g. {@code JSJa1 = JSJa1 + 1;}
+ */
+public final class Assignment extends Statement {
+    private final Identifier target;
+    private final Expression value;
+
+    public Assignment(Identifier target, Expression value) {
+        super(target.getLine());
+        this.target = target;
+        this.value = value;
+    }
+
+    public Identifier getTarget() {
+        return target;
+    }
+
+    public Expression getValue() {
+        return value;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitAssignment(this);
+    }
+}
@@ -0,0 +1,153 @@
+package src.parser;
+
+import java.util.List;
+
+/**
+ * Prints a syntax tree back as source code, one statement per line
+ */
+public class AstPrinter implements AstVisitor<Void> {
+    private final StringBuilder out = new StringBuilder();
+    private int indent = 0;
+
+    public static String print(Program program) {
+        AstPrinter printer = new AstPrinter();
+        program.accept(printer);
+        return printer.out.toString();
+    }
+
+    /**
+     * Prints an expression with the minimum parentheses its precedence needs
+     */
+    public static String print(Expression expression) {
+        AstPrinter printer = new AstPrinter();
+        expression.accept(printer);
+        return printer.out.toString();
+    }
+
+    @Override
+    public Void visitProgram(Program program) {
+        printStatements(program.getStatements());
+        return null;
+    }
+
+    private void printStatements(List<Statement> statements) {
+        for (Statement statement : statements) {
+            for (int i = 0; i < indent; i++) {
+                out.append("    ");
+            }
+            statement.accept(this);
+            out.append('\n');
+        }
+    }
+
+    @Override
+    public Void visitDeclaration(Declaration declaration) {
+        out.append(declaration.getType()).append(' ');
+        List<Declarator> declarators = declaration.getDeclarators();
+        for (int i = 0; i < declarators.size(); i++) {
+            if (i > 0) out.append(", ");
+            declarators.get(i).accept(this);
+        }
+        out.append(';');
+        return null;
+    }
+
+    @Override
+    public Void visitDeclarator(Declarator declarator) {
+        out.append(declarator.getName().getName());
+        if (declarator.getInitializer() != null) {
+            out.append(" = ");
+            declarator.getInitializer().accept(this);
+        } else if (declarator.isMissingInitializer()) {
+            out.append(" =");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitAssignment(Assignment assignment) {
+        out.append(assignment.getTarget().getName()).append(" = ");
+        assignment.getValue().accept(this);
+        out.append(';');
+        return null;
+    }
+
+    @Override
+    public Void visitWhile(WhileStatement whileStatement) {
+        out.append("while (");
+        whileStatement.getCondition().accept(this);
+        out.append(") {\n");
+        indent++;
+        printStatements(whileStatement.getBody());
+        indent--;
+        for (int i = 0; i < indent; i++) {
+            out.append("    ");
+        }
+        out.append('}');
+        return null;
+    }
+
+    @Override
+    public Void visitIdentifier(Identifier identifier) {
+        out.append(identifier.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitLiteral(Literal literal) {
+        out.append(literal.getText());
+        return null;
+    }
+
+    @Override
+    public Void visitBinary(BinaryExpression binary) {
+        int precedence = precedence(binary.getOperator());
+        printOperand(binary.getLeft(), precedence, false);
+        out.append(' ').append(binary.getOperator()).append(' ');
+        printOperand(binary.getRight(), precedence, true);
+        return null;
+    }
+
+    private void printOperand(Expression operand, int parentPrecedence, boolean isRight) {
+        boolean parens = false;
+        if (operand instanceof BinaryExpression) {
+            int precedence = precedence(((BinaryExpression) operand).getOperator());
+            // Los operadores son asociativos por la izquierda
+            parens = precedence < parentPrecedence || (isRight && precedence == parentPrecedence);
+        }
+        if (parens) out.append('(');
+        operand.accept(this);
+        if (parens) out.append(')');
+    }
+
+    private static int precedence(String operator) {
+        return "*".equals(operator) || "/".equals(operator) ? 2 : 1;
+    }
+
+    @Override
+    public Void visitComparison(Comparison comparison) {
+        comparison.getLeft().accept(this);
+        out.append(' ').append(comparison.getOperator()).append(' ');
+        comparison.getRight().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitLogical(LogicalExpression logical) {
+        printCondition(logical.getLeft(), logical.isAnd(), false);
+        out.append(' ').append(logical.getOperator()).append(' ');
+        printCondition(logical.getRight(), logical.isAnd(), true);
+        return null;
+    }
+
+    private void printCondition(Condition condition, boolean parentIsAnd, boolean isRight) {
+        boolean parens = false;
+        if (condition instanceof LogicalExpression) {
+            boolean isAnd = ((LogicalExpression) condition).isAnd();
+            parens = (parentIsAnd && !isAnd) || (isRight && isAnd == parentIsAnd);
+        }
+        if (parens) out.append('(');
+        condition.accept(this);
+        if (parens) out.append(')');
+    }
+}
@@ -0,0 +1,27 @@
+package src.parser;
+
+/**
+ * Visitor over the abstract syntax tree
+ * @param <R> Result type of each visit
+ */
+public interface AstVisitor<R> {
+    R visitProgram(Program program);
+
+    R visitDeclaration(Declaration declaration);
+
+    R visitDeclarator(Declarator declarator);
+
+    R visitAssignment(Assignment assignment);
+
+    R visitWhile(WhileStatement whileStatement);
+
+    R visitIdentifier(Identifier identifier);
+
+    R visitLiteral(Literal literal);
+
+    R visitBinary(BinaryExpression binary);
+
+    R visitComparison(Comparison comparison);
+
+    R visitLogical(LogicalExpression logical);
+}
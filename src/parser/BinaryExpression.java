@@ -0,0 +1,50 @@
+package src.parser;
+
+/**
+ * Arithmetic operation between two expressions ({@code + - * /})
+ */
+public final class BinaryExpression extends Expression {
+    private final String operator;
+    private final Expression left;
+    private final Expression right;
+    private final int hash;
+
+    public BinaryExpression(int line, String operator, Expression left, Expression right) {
+        super(line);
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+        this.hash = (operator.hashCode() * 31 + left.hashCode()) * 31 + right.hashCode();
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public Expression getLeft() {
+        return left;
+    }
+
+    public Expression getRight() {
+        return right;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitBinary(this);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof BinaryExpression)) return false;
+        BinaryExpression binary = (BinaryExpression) other;
+        return hash == binary.hash && operator.equals(binary.operator)
+            && left.equals(binary.left) && right.equals(binary.right);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,34 @@
+package src.parser;
+
+/**
+ * Relational comparison between two expressions ({@code < > <= >= == !=})
+ */
+public final class Comparison extends Condition {
+    private final String operator;
+    private final Expression left;
+    private final Expression right;
+
+    public Comparison(int line, String operator, Expression left, Expression right) {
+        super(line);
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public Expression getLeft() {
+        return left;
+    }
+
+    public Expression getRight() {
+        return right;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitComparison(this);
+    }
+}
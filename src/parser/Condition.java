@@ -0,0 +1,10 @@
+package src.parser;
+
+/**
+ * A boolean condition: a comparison or a logical combination of conditions
+ */
+public abstract class Condition extends Node {
+    protected Condition(int line) {
+        super(line);
+    }
+}
@@ -0,0 +1,32 @@
+package src.parser;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Declaration of one or more variables of the same type, e.g.
+ * {@code IntegerType JSJa1, JSJb2 = 5;}
+ */
+public final class Declaration extends Statement {
+    private final String type;
+    private final List<Declarator> declarators;
+
+    public Declaration(int line, String type, List<Declarator> declarators) {
+        super(line);
+        this.type = type;
+        this.declarators = Collections.unmodifiableList(declarators);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public List<Declarator> getDeclarators() {
+        return declarators;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitDeclaration(this);
+    }
+}
@@ -0,0 +1,40 @@
+package src.parser;
+
+/**
+ * A single variable of a declaration with its optional initializer
+ */
+public final class Declarator extends Node {
+    private final Identifier name;
+    private final Expression initializer;
+    private final boolean missingInitializer;
+
+    public Declarator(Identifier name, Expression initializer, boolean missingInitializer) {
+        super(name.getLine());
+        this.name = name;
+        this.initializer = initializer;
+        this.missingInitializer = missingInitializer;
+    }
+
+    public Identifier getName() {
+        return name;
+    }
+
+    /**
+     * @return The initial value, or null if the variable is not initialized
+     */
+    public Expression getInitializer() {
+        return initializer;
+    }
+
+    /**
+     * @return true if an assignment operator was written without a value after it
+     */
+    public boolean isMissingInitializer() {
+        return missingInitializer;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitDeclarator(this);
+    }
+}
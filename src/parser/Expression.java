@@ -0,0 +1,18 @@
+package src.parser;
+
+/**
+ * An arithmetic expression. Expressions implement value equality so equal
+ * subtrees can be found with hashing.
+ */
+public abstract class Expression extends Node {
+    protected Expression(int line) {
+        super(line);
+    }
+
+    /**
+     * @return true if the expression is a single identifier or literal
+     */
+    public boolean isLeaf() {
+        return false;
+    }
+}
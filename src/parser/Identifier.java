@@ -0,0 +1,51 @@
+package src.parser;
+
+/**
+ * Reference to a variable by name
+ */
+public final class Identifier extends Expression {
+    private final String name;
+    private final int symbol;
+
+    /**
+     * @param symbol Id of the name in the program's {@link src.tokens.SymbolPool}
+     */
+    public Identifier(int line, String name, int symbol) {
+        super(line);
+        this.name = name;
+        this.symbol = symbol;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSymbol() {
+        return symbol;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return true;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitIdentifier(this);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Identifier && name.equals(((Identifier) other).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,65 @@
+package src.parser;
+
+import src.tokens.TokenKind;
+
+/**
+ * An integer, float or string constant as written in the source
+ */
+public final class Literal extends Expression {
+    private final byte kind;
+    private final String text;
+    private final int symbol;
+
+    /**
+     * @param symbol Id of the text in the program's {@link src.tokens.SymbolPool}
+     */
+    public Literal(int line, byte kind, String text, int symbol) {
+        super(line);
+        this.kind = kind;
+        this.text = text;
+        this.symbol = symbol;
+    }
+
+    /**
+     * @return One of {@link TokenKind#INTEGER_LITERAL}, {@link TokenKind#FLOAT_LITERAL}
+     *         or {@link TokenKind#STRING_LITERAL}
+     */
+    public byte getKind() {
+        return kind;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getSymbol() {
+        return symbol;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return true;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitLiteral(this);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Literal)) return false;
+        Literal literal = (Literal) other;
+        return kind == literal.kind && text.equals(literal.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * kind + text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
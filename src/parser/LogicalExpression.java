@@ -0,0 +1,38 @@
+package src.parser;
+
+/**
+ * Short-circuit combination of two conditions ({@code && ||})
+ */
+public final class LogicalExpression extends Condition {
+    private final String operator;
+    private final Condition left;
+    private final Condition right;
+
+    public LogicalExpression(int line, String operator, Condition left, Condition right) {
+        super(line);
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public boolean isAnd() {
+        return "&&".equals(operator);
+    }
+
+    public Condition getLeft() {
+        return left;
+    }
+
+    public Condition getRight() {
+        return right;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitLogical(this);
+    }
+}
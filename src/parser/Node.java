@@ -0,0 +1,19 @@
+package src.parser;
+
+/**
+ * Base class of every node of the abstract syntax tree.
+ * Nodes are immutable and remember the source line they start on.
+ */
+public abstract class Node {
+    private final int line;
+
+    protected Node(int line) {
+        this.line = line;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public abstract <R> R accept(AstVisitor<R> visitor);
+}
@@ -0,0 +1,324 @@
+package src.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import src.errors.ErrorListener;
+import src.errors.ErrorType;
+import src.tokens.TokenKind;
+import src.tokens.TokenStream;
+
+/**
+ * Recursive-descent parser that builds the abstract syntax tree once per compilation.
+ * Arithmetic expressions and conditions are parsed by precedence climbing:
+ * {@code * /} bind tighter than {@code + -}, and {@code &&} binds tighter than {@code ||}.
+ */
+public class Parser {
+    private final TokenStream tokens;
+    private final ErrorListener errors;
+    private int pos;
+
+    private Parser(TokenStream tokens, ErrorListener errors) {
+        this.tokens = tokens;
+        this.errors = errors;
+        this.pos = 0;
+    }
+
+    /**
+     * Parses a complete program. Syntax errors are reported to the listener and
+     * the parser resynchronizes at the next statement.
+     * @param tokens Tokens of the source
+     * @param errors Listener that receives the syntax errors
+     * @return The program with every statement that could be parsed
+     */
+    public static Program parse(TokenStream tokens, ErrorListener errors) {
+        return new Parser(tokens, errors).parseProgram();
+    }
+
+    private Program parseProgram() {
+        List<Statement> statements = new ArrayList<>();
+        while (!atEnd()) {
+            if (peek() == TokenKind.RIGHT_BRACE) {
+                error("}", "statement");
+                pos++;
+                continue;
+            }
+            parseStatement(statements);
+        }
+        return new Program(statements, tokens.symbols());
+    }
+
+    private List<Statement> parseBlock() {
+        List<Statement> statements = new ArrayList<>();
+        while (!atEnd() && peek() != TokenKind.RIGHT_BRACE) {
+            parseStatement(statements);
+        }
+        expect(TokenKind.RIGHT_BRACE, "}");
+        return statements;
+    }
+
+    private void parseStatement(List<Statement> statements) {
+        int start = pos;
+        try {
+            byte kind = peek();
+            if (TokenKind.isTypeKeyword(kind)) {
+                statements.add(parseDeclaration());
+            } else if (kind == TokenKind.WHILE) {
+                statements.add(parseWhile());
+            } else if (kind == TokenKind.IDENTIFIER) {
+                statements.add(parseAssignment());
+            } else if (kind == TokenKind.SEMICOLON) {
+                pos++;
+            } else if (kind == TokenKind.LEFT_BRACE) {
+                // Bloque suelto: sus sentencias se agregan al bloque actual
+                pos++;
+                statements.addAll(parseBlock());
+            } else {
+                throw error(describe(pos), "statement");
+            }
+        } catch (SyntaxException e) {
+            synchronize(start);
+        }
+    }
+
+    private Declaration parseDeclaration() {
+        int line = tokens.line(pos);
+        String type = tokens.text(pos++);
+        List<Declarator> declarators = new ArrayList<>();
+
+        do {
+            Identifier name = parseIdentifier();
+            Expression initializer = null;
+            boolean missing = false;
+            if (match(TokenKind.ASSIGN)) {
+                if (peek() == TokenKind.COMMA || peek() == TokenKind.SEMICOLON || atEnd()) {
+                    missing = true;
+                } else {
+                    initializer = parseExpression(1);
+                }
+            }
+            declarators.add(new Declarator(name, initializer, missing));
+        } while (match(TokenKind.COMMA));
+
+        expect(TokenKind.SEMICOLON, ";");
+        return new Declaration(line, type, declarators);
+    }
+
+    private Assignment parseAssignment() {
+        Identifier target = parseIdentifier();
+        expect(TokenKind.ASSIGN, "=");
+        Expression value = parseExpression(1);
+        expect(TokenKind.SEMICOLON, ";");
+        return new Assignment(target, value);
+    }
+
+    private WhileStatement parseWhile() {
+        int line = tokens.line(pos++);
+        expect(TokenKind.LEFT_PAREN, "(");
+        Condition condition = parseCondition(1);
+        expect(TokenKind.RIGHT_PAREN, ")");
+        expect(TokenKind.LEFT_BRACE, "{");
+        List<Statement> body = parseBlock();
+        return new WhileStatement(line, condition, body);
+    }
+
+    private Condition parseCondition(int minPrecedence) {
+        Condition left = parseConditionPrimary();
+        while (true) {
+            byte kind = peek();
+            int precedence = kind == TokenKind.OR ? 1 : kind == TokenKind.AND ? 2 : 0;
+            if (precedence == 0 || precedence < minPrecedence) {
+                return left;
+            }
+            int line = tokens.line(pos);
+            String operator = tokens.text(pos++);
+            Condition right = parseCondition(precedence + 1);
+            left = new LogicalExpression(line, operator, left, right);
+        }
+    }
+
+    private Condition parseConditionPrimary() {
+        if (peek() == TokenKind.LEFT_PAREN && isParenthesizedCondition(pos)) {
+            pos++;
+            Condition condition = parseCondition(1);
+            expect(TokenKind.RIGHT_PAREN, ")");
+            return condition;
+        }
+
+        Expression left = parseExpression(1);
+        if (!TokenKind.isRelationalOperator(peek())) {
+            throw error(describe(pos), "relational operator");
+        }
+        int line = tokens.line(pos);
+        String operator = tokens.text(pos++);
+        Expression right = parseExpression(1);
+        return new Comparison(line, operator, left, right);
+    }
+
+    /**
+     * Decides if the parenthesis at the given index groups a condition instead of
+     * an arithmetic expression: it does when a relational or logical operator is
+     * directly inside it, or when it holds another parenthesis that groups one,
+     * as in {@code ((a == 1)) && b < 2}
+     */
+    private boolean isParenthesizedCondition(int open) {
+        // Por cada paréntesis abierto, si ya se sabe que agrupa una condición
+        boolean[] condition = new boolean[8];
+        int depth = 0;
+        for (int i = open; i < tokens.size(); i++) {
+            byte kind = tokens.kind(i);
+            if (kind == TokenKind.LEFT_PAREN) {
+                if (depth == condition.length) {
+                    condition = Arrays.copyOf(condition, depth * 2);
+                }
+                condition[depth++] = false;
+            } else if (kind == TokenKind.RIGHT_PAREN) {
+                boolean grouped = condition[--depth];
+                if (depth == 0) return grouped;
+                if (grouped) {
+                    if (depth == 1) return true;
+                    condition[depth - 1] = true;
+                }
+            } else if (TokenKind.isRelationalOperator(kind) || TokenKind.isLogicalOperator(kind)) {
+                if (depth == 1) return true;
+                condition[depth - 1] = true;
+            } else if (kind == TokenKind.LEFT_BRACE || kind == TokenKind.RIGHT_BRACE
+                    || kind == TokenKind.SEMICOLON) {
+                // La condición termina antes que la sentencia, y no se mira más allá
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private Expression parseExpression(int minPrecedence) {
+        Expression left = parseUnary();
+        while (true) {
+            int precedence = precedence(peek());
+            if (precedence == 0 || precedence < minPrecedence) {
+                return left;
+            }
+            int line = tokens.line(pos);
+            String operator = tokens.text(pos++);
+            Expression right = parseExpression(precedence + 1);
+            left = new BinaryExpression(line, operator, left, right);
+        }
+    }
+
+    private static int precedence(byte kind) {
+        if (kind == TokenKind.PLUS || kind == TokenKind.MINUS) return 1;
+        if (kind == TokenKind.STAR || kind == TokenKind.SLASH) return 2;
+        return 0;
+    }
+
+    private Expression parseUnary() {
+        if (peek() == TokenKind.MINUS) {
+            int line = tokens.line(pos++);
+            byte next = peek();
+            if (next == TokenKind.INTEGER_LITERAL || next == TokenKind.FLOAT_LITERAL) {
+                // Los literales negativos se conservan como un único valor
+                String text = "-" + tokens.text(pos++);
+                return new Literal(line, next, text, tokens.symbols().intern(text));
+            }
+            Expression operand = parseUnary();
+            Literal zero = new Literal(line, TokenKind.INTEGER_LITERAL, "0", tokens.symbols().intern("0"));
+            return new BinaryExpression(line, "-", zero, operand);
+        }
+        if (peek() == TokenKind.PLUS) {
+            pos++;
+            return parseUnary();
+        }
+        return parsePrimary();
+    }
+
+    private Expression parsePrimary() {
+        byte kind = peek();
+        if (kind == TokenKind.IDENTIFIER) {
+            return parseIdentifier();
+        }
+        if (TokenKind.isLiteral(kind)) {
+            int line = tokens.line(pos);
+            int symbol = tokens.symbol(pos);
+            return new Literal(line, kind, tokens.text(pos++), symbol);
+        }
+        if (kind == TokenKind.LEFT_PAREN) {
+            pos++;
+            Expression expression = parseExpression(1);
+            expect(TokenKind.RIGHT_PAREN, ")");
+            return expression;
+        }
+        throw error(describe(pos), "value");
+    }
+
+    private Identifier parseIdentifier() {
+        if (peek() != TokenKind.IDENTIFIER) {
+            throw error(describe(pos), "identifier");
+        }
+        int line = tokens.line(pos);
+        int symbol = tokens.symbol(pos);
+        return new Identifier(line, tokens.text(pos++), symbol);
+    }
+
+    /**
+     * Skips tokens until the end of the broken statement: after a semicolon, or
+     * before a brace so blocks stay balanced
+     */
+    private void synchronize(int start) {
+        if (pos == start) {
+            pos++;
+        }
+        while (!atEnd()) {
+            byte kind = peek();
+            if (kind == TokenKind.SEMICOLON) {
+                pos++;
+                return;
+            }
+            if (kind == TokenKind.LEFT_BRACE || kind == TokenKind.RIGHT_BRACE) {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private boolean atEnd() {
+        return pos >= tokens.size();
+    }
+
+    private byte peek() {
+        return atEnd() ? TokenKind.UNKNOWN : tokens.kind(pos);
+    }
+
+    private boolean match(byte kind) {
+        if (!atEnd() && tokens.kind(pos) == kind) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(byte kind, String expected) {
+        if (!match(kind)) {
+            throw error(describe(pos), expected);
+        }
+    }
+
+    private String describe(int index) {
+        return index < tokens.size() ? tokens.text(index) : "end of input";
+    }
+
+    private SyntaxException error(String found, String expected) {
+        int line = tokens.size() == 0 ? 1 : tokens.line(Math.min(pos, tokens.size() - 1));
+        errors.addError(ErrorType.UNEXPECTED_TOKEN, found, line, found, expected);
+        return new SyntaxException();
+    }
+
+    /**
+     * Unwinds the parser to the statement being parsed after an error was reported
+     */
+    private static class SyntaxException extends RuntimeException {
+        SyntaxException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package src.parser;
+
+import java.util.Collections;
+import java.util.List;
+
+import src.tokens.SymbolPool;
+
+/**
+ * Root of the abstract syntax tree
+ */
+public final class Program extends Node {
+    private final List<Statement> statements;
+    private final SymbolPool symbols;
+
+    /**
+     * @param symbols Pool with the identifiers and literals of the program
+     */
+    public Program(List<Statement> statements, SymbolPool symbols) {
+        super(1);
+        this.statements = Collections.unmodifiableList(statements);
+        this.symbols = symbols;
+    }
+
+    public List<Statement> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Interned identifiers and literals; the ids of the tree's leaves index it
+     */
+    public SymbolPool getSymbols() {
+        return symbols;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitProgram(this);
+    }
+}
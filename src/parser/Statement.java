@@ -0,0 +1,10 @@
+package src.parser;
+
+/**
+ * A statement of the program: a declaration, an assignment or a loop
+ */
+public abstract class Statement extends Node {
+    protected Statement(int line) {
+        super(line);
+    }
+}
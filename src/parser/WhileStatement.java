@@ -0,0 +1,31 @@
+package src.parser;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@code while} loop with its condition and body
+ */
+public final class WhileStatement extends Statement {
+    private final Condition condition;
+    private final List<Statement> body;
+
+    public WhileStatement(int line, Condition condition, List<Statement> body) {
+        super(line);
+        this.condition = condition;
+        this.body = Collections.unmodifiableList(body);
+    }
+
+    public Condition getCondition() {
+        return condition;
+    }
+
+    public List<Statement> getBody() {
+        return body;
+    }
+
+    @Override
+    public <R> R accept(AstVisitor<R> visitor) {
+        return visitor.visitWhile(this);
+    }
+}
@@ -1,14 +1,14 @@
 package src.tables;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.Component;
 import java.awt.Color;
 import java.util.HashMap;
+import java.util.List;
 
 public abstract class BaseTable extends JTable {
-    protected DefaultTableModel model;
+    protected RowTableModel model;
     protected HashMap<String, Boolean> lexemeDisplayed;
 
     // Common colors for dark theme
@@ -25,7 +25,7 @@ public abstract class BaseTable extends JTable {
     }
 
     protected void initializeBaseTable() {
-        model = new DefaultTableModel();
+        model = new RowTableModel();
         setModel(model);
 
         // Configure table appearance
@@ -60,13 +60,20 @@ public abstract class BaseTable extends JTable {
     }
 
     public final void clearTable() {
-        while (model.getRowCount() > 0) {
-            model.removeRow(0);
-        }
+        model.clear();
         lexemeDisplayed.clear();
         clearSpecificData();
     }
 
+    /**
+     * Replaces every row at once, firing a single table event instead of one per row
+     * @param rows New rows of the table
+     */
+    protected void replaceRows(List<Object[]> rows) {
+        lexemeDisplayed.clear();
+        model.setAll(rows);
+    }
+
     public void addLexemeToTable(String lexeme, String type) {
         if (!lexemeDisplayed.containsKey(lexeme)) {
             model.addRow(new Object[]{lexeme, type});
@@ -1,17 +1,25 @@
 package src.tables;
 
-import src.compiler.MainWindow;
+import src.analysis.Diagnostics;
+import src.analysis.Diagnostics.Diagnostic;
 import src.tokens.TokenType;
+import src.errors.ErrorListener;
 import src.errors.ErrorType;
 
 import java.util.ArrayList;
+import java.util.List;
 
-public class ErrorTable extends BaseTable {
+public class ErrorTable extends BaseTable implements ErrorListener {
     private ArrayList<SemanticError> errors;
     private int errorCounter = 1; // Contador para tokens únicos
+    private final SymbolTable symbolTable;
 
-    public ErrorTable() {
+    /**
+     * @param symbolTable Tabla de símbolos donde se listan los lexemas con error, puede ser null
+     */
+    public ErrorTable(SymbolTable symbolTable) {
         super();
+        this.symbolTable = symbolTable;
         errors = new ArrayList<>();
         initializeColumns();
     }
@@ -36,6 +44,7 @@ public class ErrorTable extends BaseTable {
         errorCounter = 1; // Reiniciar el contador al limpiar
     }
 
+    @Override
     public void addError(ErrorType errorType, String lexeme, int line, Object... args) {
         String uniqueToken = errorType.getToken() + "_" + errorCounter++; // Token único con contador
         SemanticError error = new SemanticError(uniqueToken, lexeme, line,
@@ -49,36 +58,31 @@ public class ErrorTable extends BaseTable {
         });
         
         // Asegurarse de que el lexema que causó el error esté en la tabla de símbolos
-        if (MainWindow.symbolTable != null) {
-            MainWindow.symbolTable.addLexemeToTable(lexeme, TokenType.UNDEFINED.toString());
+        if (symbolTable != null) {
+            symbolTable.addLexemeToTable(lexeme, TokenType.UNDEFINED.toString());
         }
     }
 
-    public void checkSemanticError(String input, int line) {
-        if (input.contains("=")) {
-            checkAssignmentError(input, line);
-        }
-    }
-
-    private void checkAssignmentError(String input, int line) {
-        String[] parts = input.split("=");
-        if (parts.length != 2) return;
-
-        String variable = parts[0].trim();
-        String value = parts[1].trim().replace(";", "");
-
-        String varType = MainWindow.symbolTable.getType(variable);
-
-        if (varType == null) {
-            addError(ErrorType.UNDECLARED_VARIABLE, variable, line);
-            return;
-        }
-
-        TokenType type = TokenType.getType(varType);
-        if (!type.isValidValue(value)) {
-            addError(ErrorType.TYPE_MISMATCH, variable, line,
-                value, varType);
+    /**
+     * Replaces the table contents with the errors of the last analysis in a single update.
+     * Must be called on the event dispatch thread.
+     * @param diagnostics Errors of the last analysis
+     */
+    public void showDiagnostics(Diagnostics diagnostics) {
+        errors.clear();
+        List<Object[]> rows = new ArrayList<>(diagnostics.size());
+        for (Diagnostic diagnostic : diagnostics.getEntries()) {
+            errors.add(new SemanticError(diagnostic.getToken(), diagnostic.getLexeme(),
+                diagnostic.getLine(), diagnostic.getDescription()));
+            rows.add(new Object[]{
+                diagnostic.getToken(),
+                diagnostic.getLexeme(),
+                diagnostic.getLine(),
+                diagnostic.getDescription()
+            });
         }
+        errorCounter = diagnostics.size() + 1;
+        replaceRows(rows);
     }
 
     // Inner class to represent a semantic error
@@ -0,0 +1,83 @@
+package src.tables;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model backed by a plain list of row arrays. Whole contents are
+ * replaced or cleared with a single table event, instead of one per row as
+ * with {@link javax.swing.table.DefaultTableModel}.
+ */
+public class RowTableModel extends AbstractTableModel {
+    private final List<String> columns = new ArrayList<>();
+    private ArrayList<Object[]> rows = new ArrayList<>();
+
+    public void addColumn(String name) {
+        columns.add(name);
+        fireTableStructureChanged();
+    }
+
+    /**
+     * Appends one row
+     */
+    public void addRow(Object[] row) {
+        rows.add(row);
+        int index = rows.size() - 1;
+        fireTableRowsInserted(index, index);
+    }
+
+    /**
+     * Replaces every row, firing one event
+     * @param newRows Rows of the table; the list is copied, the arrays are not
+     */
+    public void setAll(Collection<Object[]> newRows) {
+        rows = new ArrayList<>(newRows);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Removes every row, firing one event
+     */
+    public void clear() {
+        if (rows.isEmpty()) {
+            return;
+        }
+        rows = new ArrayList<>();
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns.get(column);
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Object[] values = rows.get(row);
+        return column < values.length ? values[column] : null;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return true;
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        rows.get(row)[column] = value;
+        fireTableCellUpdated(row, column);
+    }
+}
@@ -0,0 +1,251 @@
+package src.tokens;
+
+/**
+ * Hand-written, single-pass scanner for the source language.
+ * The whole source is scanned once into a {@link TokenStream} that is shared by
+ * the symbol table, the optimizer and the code generators. Identifiers and
+ * literals are interned into the stream's {@link SymbolPool} here, so no later
+ * stage has to copy or hash their text again.
+ */
+public class Lexer {
+    private final CharSequence source;
+    private final int length;
+    private int pos;
+    private int line;
+
+    private final SymbolPool symbols;
+
+    private Lexer(CharSequence source, int firstLine, SymbolPool symbols) {
+        this.source = source;
+        this.symbols = symbols;
+        this.length = source.length();
+        this.pos = 0;
+        this.line = firstLine;
+    }
+
+    /**
+     * Scans a complete source into tokens
+     * @param source Código fuente a procesar
+     * @return The token stream for the source
+     */
+    public static TokenStream scan(CharSequence source) {
+        return new Lexer(source, 1, null).run();
+    }
+
+    /**
+     * Scans a fragment of a larger source whose first line has the given number
+     */
+    public static TokenStream scan(CharSequence source, int firstLine) {
+        return new Lexer(source, firstLine, null).run();
+    }
+
+    /**
+     * Scans a fragment interning its identifiers and literals into an existing
+     * pool, so the ids of several fragments can be compared with each other
+     */
+    public static TokenStream scan(CharSequence source, int firstLine, SymbolPool symbols) {
+        return new Lexer(source, firstLine, symbols).run();
+    }
+
+    private TokenStream run() {
+        // Una estimación de un token cada cuatro caracteres evita casi todos los redimensionamientos
+        TokenStream tokens = this.symbols == null ? new TokenStream(source, length / 4)
+            : new TokenStream(source, length / 4, this.symbols);
+        SymbolPool symbols = tokens.symbols();
+
+        while (pos < length) {
+            char c = source.charAt(pos);
+
+            if (c == '\n') {
+                line++;
+                pos++;
+                continue;
+            }
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\f') {
+                pos++;
+                continue;
+            }
+
+            int start = pos;
+            if (isIdentifierStart(c)) {
+                scanWord();
+                byte kind = wordKind(start, pos - start);
+                if (kind == TokenKind.IDENTIFIER) {
+                    tokens.add(kind, start, pos - start, line, symbols.intern(source, start, pos));
+                } else {
+                    tokens.add(kind, start, pos - start, line);
+                }
+            } else if (isDigit(c) || (c == '.' && isDigit(peek(1)))) {
+                byte kind = scanNumber();
+                tokens.add(kind, start, pos - start, line, symbols.intern(source, start, pos));
+            } else if (c == '"') {
+                byte kind = scanString();
+                if (kind == TokenKind.STRING_LITERAL) {
+                    tokens.add(kind, start, pos - start, line, symbols.intern(source, start, pos));
+                } else {
+                    tokens.add(kind, start, pos - start, line);
+                }
+            } else if (c == '/' && peek(1) == '/') {
+                skipLineComment();
+            } else if (c == '/' && peek(1) == '*') {
+                skipBlockComment();
+            } else {
+                byte kind = scanOperator(c);
+                tokens.add(kind, start, pos - start, line);
+            }
+        }
+
+        return tokens;
+    }
+
+    private char peek(int offset) {
+        int index = pos + offset;
+        return index < length ? source.charAt(index) : '\0';
+    }
+
+    private void scanWord() {
+        pos++;
+        while (pos < length && isIdentifierPart(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private byte scanNumber() {
+        while (pos < length && isDigit(source.charAt(pos))) {
+            pos++;
+        }
+        if (pos < length && source.charAt(pos) == '.' && isDigit(peek(1))) {
+            pos++;
+            while (pos < length && isDigit(source.charAt(pos))) {
+                pos++;
+            }
+            return TokenKind.FLOAT_LITERAL;
+        }
+        return TokenKind.INTEGER_LITERAL;
+    }
+
+    private byte scanString() {
+        pos++; // comilla de apertura
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '"') {
+                pos++;
+                return TokenKind.STRING_LITERAL;
+            }
+            if (c == '\n') {
+                break;
+            }
+            pos++;
+        }
+        // Cadena sin cerrar: se reporta como token desconocido
+        return TokenKind.UNKNOWN;
+    }
+
+    private void skipLineComment() {
+        while (pos < length && source.charAt(pos) != '\n') {
+            pos++;
+        }
+    }
+
+    private void skipBlockComment() {
+        pos += 2;
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '*' && peek(1) == '/') {
+                pos += 2;
+                return;
+            }
+            if (c == '\n') {
+                line++;
+            }
+            pos++;
+        }
+    }
+
+    private byte scanOperator(char c) {
+        char next = peek(1);
+        pos++;
+        switch (c) {
+            case '+': return TokenKind.PLUS;
+            case '-': return TokenKind.MINUS;
+            case '*': return TokenKind.STAR;
+            case '/': return TokenKind.SLASH;
+            case '(': return TokenKind.LEFT_PAREN;
+            case ')': return TokenKind.RIGHT_PAREN;
+            case '{': return TokenKind.LEFT_BRACE;
+            case '}': return TokenKind.RIGHT_BRACE;
+            case ',': return TokenKind.COMMA;
+            case ';': return TokenKind.SEMICOLON;
+            case '<':
+                if (next == '=') { pos++; return TokenKind.LESS_EQUAL; }
+                return TokenKind.LESS;
+            case '>':
+                if (next == '=') { pos++; return TokenKind.GREATER_EQUAL; }
+                return TokenKind.GREATER;
+            case '=':
+                if (next == '=') { pos++; return TokenKind.EQUAL; }
+                return TokenKind.ASSIGN;
+            case '!':
+                if (next == '=') { pos++; return TokenKind.NOT_EQUAL; }
+                return TokenKind.UNKNOWN;
+            case '&':
+                if (next == '&') { pos++; return TokenKind.AND; }
+                return TokenKind.UNKNOWN;
+            case '|':
+                if (next == '|') { pos++; return TokenKind.OR; }
+                return TokenKind.UNKNOWN;
+            default:
+                return TokenKind.UNKNOWN;
+        }
+    }
+
+    private byte wordKind(int start, int length) {
+        switch (source.charAt(start)) {
+            case 'I':
+                if (regionEquals(start, length, "IntegerType")) return TokenKind.INTEGER_TYPE;
+                break;
+            case 'F':
+                if (regionEquals(start, length, "FloatType")) return TokenKind.FLOAT_TYPE;
+                break;
+            case 'S':
+                if (regionEquals(start, length, "StringType")) return TokenKind.STRING_TYPE;
+                break;
+            case 'w':
+                if (regionEquals(start, length, "while")) return TokenKind.WHILE;
+                break;
+            case 'i':
+                if (regionEquals(start, length, "if")) return TokenKind.IF;
+                break;
+            case 'f':
+                if (regionEquals(start, length, "for")) return TokenKind.FOR;
+                break;
+            default:
+                break;
+        }
+        return TokenKind.IDENTIFIER;
+    }
+
+    private boolean regionEquals(int start, int length, String keyword) {
+        if (length != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(start + i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || isDigit(c);
+    }
+}
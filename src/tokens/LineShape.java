@@ -0,0 +1,123 @@
+package src.tokens;
+
+/**
+ * What splitting a source into statements needs to know about one of its lines:
+ * its braces, its last token and whether it leaves a block comment open.
+ * Spaces, strings and comments are skipped the same way the {@link Lexer} does,
+ * without building tokens.
+ */
+public final class LineShape {
+    /** Last token kind of a line that has no tokens */
+    public static final byte NO_TOKENS = -1;
+
+    private final int closes;
+    private final int opens;
+    private final byte last;
+    private final boolean endsInComment;
+
+    private LineShape(int closes, int opens, byte last, boolean endsInComment) {
+        this.closes = closes;
+        this.opens = opens;
+        this.last = last;
+        this.endsInComment = endsInComment;
+    }
+
+    /**
+     * Scans one line, without its line break
+     * @param startsInComment true if a previous line left a block comment open
+     */
+    public static LineShape of(CharSequence line, boolean startsInComment) {
+        int depth = 0;
+        int unmatched = 0;
+        byte last = NO_TOKENS;
+        int length = line.length();
+        int i = 0;
+        if (startsInComment) {
+            i = indexOf(line, '*', '/', 0);
+            if (i < 0) {
+                return new LineShape(0, 0, NO_TOKENS, true);
+            }
+            i += 2;
+        }
+        while (i < length) {
+            char c = line.charAt(i);
+            char next = i + 1 < length ? line.charAt(i + 1) : '\0';
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\f') {
+                i++;
+            } else if (c == '/' && next == '/') {
+                break;
+            } else if (c == '/' && next == '*') {
+                int close = indexOf(line, '*', '/', i + 2);
+                if (close < 0) {
+                    return new LineShape(unmatched, depth, last, true);
+                }
+                i = close + 2;
+            } else if (c == '"') {
+                // Una cadena sin cerrar llega hasta el final de la línea
+                last = TokenKind.UNKNOWN;
+                int close = indexOf(line, '"', i + 1);
+                if (close < 0) {
+                    break;
+                }
+                i = close + 1;
+            } else {
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    if (depth == 0) {
+                        unmatched++;
+                    } else {
+                        depth--;
+                    }
+                }
+                last = c == ';' ? TokenKind.SEMICOLON : c == '}' ? TokenKind.RIGHT_BRACE : TokenKind.UNKNOWN;
+                i++;
+            }
+        }
+        return new LineShape(unmatched, depth, last, false);
+    }
+
+    /**
+     * Brace depth after the line. A '}' with no open brace leaves the depth at
+     * zero, as the parser reports it and goes on.
+     */
+    public int depthAfter(int depth) {
+        return Math.max(depth - closes, 0) + opens;
+    }
+
+    public boolean hasTokens() {
+        return last != NO_TOKENS;
+    }
+
+    /**
+     * Returns true if the last token is ';' or '}', where a statement can end
+     */
+    public boolean endsWithTerminator() {
+        return last == TokenKind.SEMICOLON || last == TokenKind.RIGHT_BRACE;
+    }
+
+    /**
+     * Returns true if the line opens a block comment that it does not close
+     */
+    public boolean endsInComment() {
+        return endsInComment;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(CharSequence text, char first, char second, int from) {
+        for (int i = from; i + 1 < text.length(); i++) {
+            if (text.charAt(i) == first && text.charAt(i + 1) == second) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,110 @@
+package src.tokens;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Splits a source read from a {@link Reader} into top-level statements, so a
+ * compiler can scan and parse it one statement at a time. A statement ends at a
+ * line outside any brace and comment whose last token is ';' or '}', which is
+ * where the parser would be back at the top level. Lines without tokens between
+ * statements are skipped; line numbers still count them.
+ *
+ * Only the current line and the current statement are kept in memory.
+ */
+public class StatementReader {
+    private final Reader reader;
+    private final Writer copy;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+
+    private final StringBuilder line = new StringBuilder();
+    private final StringBuilder statement = new StringBuilder();
+    private int lineNumber;
+    private int firstLine;
+    private int depth;
+    private boolean inComment;
+
+    /**
+     * @param reader Source to split
+     * @param copy Receives every character read, or null
+     */
+    public StatementReader(Reader reader, Writer copy) {
+        this.reader = reader;
+        this.copy = copy;
+    }
+
+    /**
+     * Reads the next statement, with the lines it spans
+     * @return The text of the statement, or null at the end of the source
+     */
+    public String next() throws IOException {
+        statement.setLength(0);
+        while (readLine()) {
+            lineNumber++;
+            LineShape shape = LineShape.of(line, inComment);
+            boolean continues = inComment || statement.length() > 0;
+            inComment = shape.endsInComment();
+            if (!continues && !shape.hasTokens() && !inComment) {
+                continue;
+            }
+            if (statement.length() == 0) {
+                firstLine = lineNumber;
+            } else {
+                statement.append('\n');
+            }
+            statement.append(line);
+            depth = shape.depthAfter(depth);
+            if (depth == 0 && !inComment && shape.endsWithTerminator()) {
+                return statement.toString();
+            }
+        }
+        // Lo que quede sin terminar forma la última sentencia
+        return statement.length() > 0 ? statement.toString() : null;
+    }
+
+    /**
+     * Line of the source where the last statement returned by {@link #next()} starts
+     */
+    public int getFirstLine() {
+        return firstLine;
+    }
+
+    /**
+     * Reads one line without its line break
+     * @return false when the source has no more lines
+     */
+    private boolean readLine() throws IOException {
+        line.setLength(0);
+        if (endOfInput) {
+            return false;
+        }
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit < 0) {
+                    // La última línea no termina en salto de línea, aunque esté vacía
+                    limit = 0;
+                    endOfInput = true;
+                    return true;
+                }
+                if (copy != null) {
+                    copy.write(buffer, 0, limit);
+                }
+            }
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            line.append(buffer, start, position - start);
+            if (position < limit) {
+                position++;
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package src.tokens;
+
+import java.util.Arrays;
+
+/**
+ * Interned names and literals. The {@link Lexer} adds every identifier and
+ * literal once, and each distinct text gets a dense int id the first time it is
+ * seen. Later stages compare operands by id and keep per-symbol data in arrays
+ * indexed by it.
+ *
+ * Lookups hash the characters directly, so interning a token of the source does
+ * not allocate unless the text is new.
+ */
+public class SymbolPool {
+    private String[] names;
+    private int[] hashes;
+    private int[] table;    // Open addressing: id + 1 of each slot, 0 when empty
+    private int size;
+
+    public SymbolPool() {
+        this(64);
+    }
+
+    public SymbolPool(int capacity) {
+        capacity = Math.max(capacity, 16);
+        this.names = new String[capacity];
+        this.hashes = new int[capacity];
+        this.table = new int[tableSize(capacity)];
+    }
+
+    /**
+     * Obtains the id of a text, adding it to the pool if it is new
+     */
+    public int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * Obtains the id of the characters in [start, end) of a text, adding them
+     * to the pool if they are new
+     */
+    public int intern(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && matches(names[id], text, start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == names.length) {
+            int capacity = size + (size >> 1);
+            names = Arrays.copyOf(names, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        int id = size++;
+        names[id] = text.subSequence(start, end).toString();
+        hashes[id] = hash;
+        table[slot] = id + 1;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Finds the id of a text without adding it
+     * @return The id, or -1 if the text is not in the pool
+     */
+    public int find(String name) {
+        int hash = hash(name, 0, name.length());
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * Number of symbols; ids go from 0 to size - 1
+     */
+    public int size() {
+        return size;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    private static int tableSize(int capacity) {
+        int size = 32;
+        while (size < capacity * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        // Mezcla los bits altos para que la máscara de la tabla los aproveche
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence text, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,86 @@
+package src.tokens;
+
+/**
+ * Token kinds produced by the {@link Lexer}.
+ * Kinds are stored as bytes so a {@link TokenStream} can keep them in a compact array.
+ */
+public final class TokenKind {
+    public static final byte UNKNOWN = 0;
+    public static final byte IDENTIFIER = 1;
+    public static final byte INTEGER_LITERAL = 2;
+    public static final byte FLOAT_LITERAL = 3;
+    public static final byte STRING_LITERAL = 4;
+
+    // Reserved words
+    public static final byte INTEGER_TYPE = 5;
+    public static final byte FLOAT_TYPE = 6;
+    public static final byte STRING_TYPE = 7;
+    public static final byte WHILE = 8;
+    public static final byte IF = 9;
+    public static final byte FOR = 10;
+
+    // Operators
+    public static final byte ASSIGN = 11;
+    public static final byte PLUS = 12;
+    public static final byte MINUS = 13;
+    public static final byte STAR = 14;
+    public static final byte SLASH = 15;
+    public static final byte LESS = 16;
+    public static final byte GREATER = 17;
+    public static final byte LESS_EQUAL = 18;
+    public static final byte GREATER_EQUAL = 19;
+    public static final byte EQUAL = 20;
+    public static final byte NOT_EQUAL = 21;
+    public static final byte AND = 22;
+    public static final byte OR = 23;
+
+    // Delimiters
+    public static final byte LEFT_PAREN = 24;
+    public static final byte RIGHT_PAREN = 25;
+    public static final byte LEFT_BRACE = 26;
+    public static final byte RIGHT_BRACE = 27;
+    public static final byte COMMA = 28;
+    public static final byte SEMICOLON = 29;
+
+    private static final String[] SPELLINGS = {
+        null, null, null, null, null,
+        "IntegerType", "FloatType", "StringType", "while", "if", "for",
+        "=", "+", "-", "*", "/", "<", ">", "<=", ">=", "==", "!=", "&&", "||",
+        "(", ")", "{", "}", ",", ";"
+    };
+
+    private TokenKind() {
+    }
+
+    /**
+     * Returns the fixed spelling of a kind, or null for kinds whose text varies
+     * (identifiers, literals and unknown characters)
+     */
+    public static String spelling(byte kind) {
+        return SPELLINGS[kind];
+    }
+
+    public static boolean isTypeKeyword(byte kind) {
+        return kind == INTEGER_TYPE || kind == FLOAT_TYPE || kind == STRING_TYPE;
+    }
+
+    public static boolean isReservedWord(byte kind) {
+        return kind >= INTEGER_TYPE && kind <= FOR;
+    }
+
+    public static boolean isArithmeticOperator(byte kind) {
+        return kind >= PLUS && kind <= SLASH;
+    }
+
+    public static boolean isRelationalOperator(byte kind) {
+        return kind >= LESS && kind <= NOT_EQUAL;
+    }
+
+    public static boolean isLogicalOperator(byte kind) {
+        return kind == AND || kind == OR;
+    }
+
+    public static boolean isLiteral(byte kind) {
+        return kind >= INTEGER_LITERAL && kind <= STRING_LITERAL;
+    }
+}
@@ -0,0 +1,234 @@
+package src.tokens;
+
+import java.util.Arrays;
+
+/**
+ * Compact token array produced once per compilation by the {@link Lexer}.
+ * Each token is stored as (kind, start offset, length, line, symbol) in parallel
+ * arrays. Identifiers and literals are interned in a {@link SymbolPool} as they
+ * are scanned; other tokens have no symbol and share their fixed spelling.
+ */
+public class TokenStream {
+    /** Symbol of tokens that are not identifiers or literals */
+    public static final int NO_SYMBOL = -1;
+
+    private final CharSequence source;
+    private final SymbolPool symbols;
+    private byte[] kinds;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] symbolIds;
+    private int size;
+
+    TokenStream(CharSequence source, int capacity) {
+        this(source, capacity, new SymbolPool(Math.max(capacity, 16) / 4));
+    }
+
+    TokenStream(CharSequence source, int capacity, SymbolPool symbols) {
+        this.source = source;
+        capacity = Math.max(capacity, 16);
+        this.symbols = symbols;
+        this.kinds = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+        this.symbolIds = new int[capacity];
+    }
+
+    void add(byte kind, int start, int length, int line) {
+        add(kind, start, length, line, NO_SYMBOL);
+    }
+
+    void add(byte kind, int start, int length, int line, int symbol) {
+        if (size == kinds.length) {
+            int capacity = size + (size >> 1);
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            symbolIds = Arrays.copyOf(symbolIds, capacity);
+        }
+        kinds[size] = kind;
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        symbolIds[size] = symbol;
+        size++;
+    }
+
+    public CharSequence source() {
+        return source;
+    }
+
+    /**
+     * Pool with the identifiers and literals of the source, shared by the later stages
+     */
+    public SymbolPool symbols() {
+        return symbols;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte kind(int index) {
+        return kinds[index];
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int length(int index) {
+        return lengths[index];
+    }
+
+    public int end(int index) {
+        return starts[index] + lengths[index];
+    }
+
+    public int line(int index) {
+        return lines[index];
+    }
+
+    /**
+     * Id of an identifier or literal in {@link #symbols()}
+     * @return The id, or {@link #NO_SYMBOL} for other tokens
+     */
+    public int symbol(int index) {
+        return symbolIds[index];
+    }
+
+    /**
+     * Obtains the text of a token. Identifiers and literals return their
+     * interned text, and operators, delimiters and reserved words their shared
+     * spelling, instead of copying the source.
+     */
+    public String text(int index) {
+        if (symbolIds[index] != NO_SYMBOL) {
+            return symbols.name(symbolIds[index]);
+        }
+        String spelling = TokenKind.spelling(kinds[index]);
+        if (spelling != null) {
+            return spelling;
+        }
+        return source.subSequence(starts[index], starts[index] + lengths[index]).toString();
+    }
+
+    /**
+     * Obtains the source text covered by the tokens in [from, to), keeping the
+     * original spacing between them
+     * @return The covered text, or an empty string if the range is empty
+     */
+    public String text(int from, int to) {
+        if (from >= to) {
+            return "";
+        }
+        if (to - from == 1) {
+            return text(from);
+        }
+        return source.subSequence(starts[from], end(to - 1)).toString();
+    }
+
+    /**
+     * Compares the text of a token with a string without allocating
+     */
+    public boolean textEquals(int index, String value) {
+        int length = lengths[index];
+        if (length != value.length()) {
+            return false;
+        }
+        int start = starts[index];
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy of the stream that no longer holds its source. Only the text of the
+     * tokens without a symbol or a fixed spelling is kept, so {@link #text(int)}
+     * answers the same; the offsets of the copy point into that kept text, and
+     * ranges of several tokens do not keep the original spacing.
+     */
+    public TokenStream detach() {
+        StringBuilder kept = new StringBuilder();
+        int[] keptStarts = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (symbolIds[i] == NO_SYMBOL && TokenKind.spelling(kinds[i]) == null) {
+                keptStarts[i] = kept.length();
+                kept.append(source, starts[i], starts[i] + lengths[i]);
+            }
+        }
+        TokenStream copy = new TokenStream(kept.toString(), size, symbols);
+        for (int i = 0; i < size; i++) {
+            copy.add(kinds[i], keptStarts[i], lengths[i], lines[i], symbolIds[i]);
+        }
+        return copy;
+    }
+
+    /**
+     * Finds the first token of the given kind in [from, to)
+     * @return The token index, or -1 if there is none
+     */
+    public int indexOf(byte kind, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (kinds[i] == kind) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the tokens of the given kind in [from, to)
+     */
+    public int count(byte kind, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (kinds[i] == kind) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the parenthesis closing the one at the given index
+     * @return The index of the closing parenthesis, or -1 if it is unbalanced
+     */
+    public int matchingParen(int open, int to) {
+        int depth = 0;
+        for (int i = open; i < to; i++) {
+            if (kinds[i] == TokenKind.LEFT_PAREN) {
+                depth++;
+            } else if (kinds[i] == TokenKind.RIGHT_PAREN && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds where the statement starting at the given index ends. A statement
+     * ends at a semicolon, before a brace, or where its source line ends.
+     * @return The index just past the statement (the semicolon is included)
+     */
+    public int statementEnd(int from) {
+        int line = lines[from];
+        for (int i = from; i < size; i++) {
+            byte kind = kinds[i];
+            if (kind == TokenKind.SEMICOLON) {
+                return i + 1;
+            }
+            if (i > from && (lines[i] != line
+                    || kind == TokenKind.LEFT_BRACE || kind == TokenKind.RIGHT_BRACE)) {
+                return i;
+            }
+        }
+        return size;
+    }
+}
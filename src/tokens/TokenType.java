@@ -1,23 +1,23 @@
 package src.tokens;
 
 import java.util.HashMap;
-import java.util.regex.Pattern;
+
+import src.validators.RegExPattern;
 
 public class TokenType {
     private final String type;
-    private final Pattern valuePattern;
 
-    public static final TokenType RESERVED_WORD = new TokenType("Reserved Word", null);
-    public static final TokenType DELIMITER = new TokenType("Delimiter", null);
-    public static final TokenType ASSIGNMENT_OPERATOR = new TokenType("Assignment Operator", null);
-    public static final TokenType ARITHMETIC_OPERATOR = new TokenType("Arithmetic Operator", null);
-    public static final TokenType RELATIONAL_OPERATOR = new TokenType("Relational Operator", null);
+    public static final TokenType RESERVED_WORD = new TokenType("Reserved Word");
+    public static final TokenType DELIMITER = new TokenType("Delimiter");
+    public static final TokenType ASSIGNMENT_OPERATOR = new TokenType("Assignment Operator");
+    public static final TokenType ARITHMETIC_OPERATOR = new TokenType("Arithmetic Operator");
+    public static final TokenType RELATIONAL_OPERATOR = new TokenType("Relational Operator");
 
-    public static final TokenType INTEGER_TYPE = new TokenType("IntegerType", Pattern.compile("^-?\\d+$"));
-    public static final TokenType FLOAT_TYPE = new TokenType("FloatType", Pattern.compile("^-?\\d*\\.?\\d+$"));
-    public static final TokenType STRING_TYPE = new TokenType("StringType", Pattern.compile("^\".*\"$"));
+    public static final TokenType INTEGER_TYPE = new TokenType("IntegerType");
+    public static final TokenType FLOAT_TYPE = new TokenType("FloatType");
+    public static final TokenType STRING_TYPE = new TokenType("StringType");
 
-    public static final TokenType UNDEFINED = new TokenType("Undefined", null);
+    public static final TokenType UNDEFINED = new TokenType("Undefined");
 
     private static final HashMap<String, TokenType> SYMBOL_TYPES = new HashMap<String, TokenType>() {{
         // Types (Reserved Words)
@@ -55,9 +55,8 @@ public class TokenType {
         put("!=", RELATIONAL_OPERATOR);
     }};
 
-    private TokenType(String type, Pattern valuePattern) {
+    private TokenType(String type) {
         this.type = type;
-        this.valuePattern = valuePattern;
     }
 
     public static TokenType getType(String symbol) {
@@ -65,7 +64,11 @@ public class TokenType {
     }
 
     public boolean isValidValue(String value) {
-        return valuePattern != null && valuePattern.matcher(value).matches();
+        // Los tipos del lenguaje se validan con los escáneres equivalentes a sus patrones
+        if (this == INTEGER_TYPE) return RegExPattern.isIntegerLiteral(value);
+        if (this == FLOAT_TYPE) return RegExPattern.isFloatLiteral(value);
+        if (this == STRING_TYPE) return RegExPattern.isStringLiteral(value);
+        return false;
     }
 
     @Override
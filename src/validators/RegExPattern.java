@@ -2,10 +2,105 @@ package src.validators;
 
 import java.util.regex.Pattern;
 
+/**
+ * Validation of identifiers and literal values. The checks are hand-written
+ * character scanners that accept exactly the same strings as the patterns
+ * below, without allocating; the patterns are kept as the reference definitions.
+ */
 public class RegExPattern {
-    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("JSJ[a-z][0-9]+");
+    public static final Pattern IDENTIFIER_PATTERN = Pattern.compile("JSJ[a-z][0-9]+");
+    public static final Pattern INTEGER_PATTERN = Pattern.compile("^-?\\d+$");
+    public static final Pattern FLOAT_PATTERN = Pattern.compile("^-?\\d*\\.?\\d+$");
+    public static final Pattern STRING_PATTERN = Pattern.compile("^\".*\"$");
 
-    public static boolean isValidIdentifier(String identifier) {
-        return IDENTIFIER_PATTERN.matcher(identifier).matches();
+    // Estados del autómata de identificadores
+    private static final int REJECT = -1;
+    private static final int START = 0;
+    private static final int AFTER_J = 1;
+    private static final int AFTER_JS = 2;
+    private static final int AFTER_JSJ = 3;
+    private static final int AFTER_LETTER = 4;
+    private static final int DIGITS = 5;
+
+    /**
+     * Checks an identifier against {@code JSJ[a-z][0-9]+} with a DFA
+     */
+    public static boolean isValidIdentifier(CharSequence identifier) {
+        int state = START;
+        for (int i = 0; i < identifier.length() && state != REJECT; i++) {
+            state = next(state, identifier.charAt(i));
+        }
+        return state == DIGITS;
+    }
+
+    private static int next(int state, char c) {
+        switch (state) {
+            case START: return c == 'J' ? AFTER_J : REJECT;
+            case AFTER_J: return c == 'S' ? AFTER_JS : REJECT;
+            case AFTER_JS: return c == 'J' ? AFTER_JSJ : REJECT;
+            case AFTER_JSJ: return c >= 'a' && c <= 'z' ? AFTER_LETTER : REJECT;
+            default: return isDigit(c) ? DIGITS : REJECT;
+        }
+    }
+
+    /**
+     * Checks a value against {@link #INTEGER_PATTERN}: an optional minus and digits
+     */
+    public static boolean isIntegerLiteral(CharSequence value) {
+        int start = value.length() > 0 && value.charAt(0) == '-' ? 1 : 0;
+        return start < value.length() && digitsUntil(value, start) == value.length();
+    }
+
+    /**
+     * Checks a value against {@link #FLOAT_PATTERN}: an optional minus, then
+     * digits, or digits around a point with at least one after it
+     */
+    public static boolean isFloatLiteral(CharSequence value) {
+        int length = value.length();
+        int start = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+        int point = digitsUntil(value, start);
+        if (point < length && value.charAt(point) == '.') {
+            return point + 1 < length && digitsUntil(value, point + 1) == length;
+        }
+        return point > start && point == length;
+    }
+
+    /**
+     * Checks a value against {@link #STRING_PATTERN}: text between double
+     * quotes without line breaks
+     */
+    public static boolean isStringLiteral(CharSequence value) {
+        int last = value.length() - 1;
+        if (last < 1 || value.charAt(0) != '"' || value.charAt(last) != '"') {
+            return false;
+        }
+        for (int i = 1; i < last; i++) {
+            if (isLineTerminator(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Index of the first character from {@code from} that is not a digit
+     */
+    private static int digitsUntil(CharSequence value, int from) {
+        int i = from;
+        while (i < value.length() && isDigit(value.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Characters that {@code .} does not match in a {@link Pattern}
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
     }
-}
\ No newline at end of file
+}